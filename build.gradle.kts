@@ -1,4 +1,3 @@
-
 plugins {
     `java-library`
     `jacoco`
@@ -6,6 +5,13 @@ plugins {
 repositories {
     mavenCentral()
 }
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+configurations["jmhImplementation"].extendsFrom(configurations.implementation.get())
 dependencies {
     implementation("jakarta.inject:jakarta.inject-api:2.0.1")
     implementation("org.mockito:mockito-junit-jupiter:4.5.1")
@@ -16,11 +22,27 @@ dependencies {
     testRuntimeOnly("org.junit.platform:junit-platform-runner:1.8.2")
     testImplementation("org.mockito:mockito-core:4.5.1")
     testImplementation("jakarta.inject:jakarta.inject-tck:2.0.1")
+    testAnnotationProcessor(project(":processor"))
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+    "jmhAnnotationProcessor"(project(":processor"))
 }
 tasks.withType<Test>() {
     useJUnitPlatform()
 }
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args(providers.gradleProperty("jmh.includes").getOrElse(".*"))
+    args("-prof", providers.gradleProperty("jmh.profilers").getOrElse("gc"))
+}
+tasks.register<JavaExec>("registryFootprint") {
+    group = "benchmark"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.tdd.di.RegistryFootprint")
+}
 java {
     sourceCompatibility = JavaVersion.VERSION_17
     targetCompatibility = JavaVersion.VERSION_17
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+plugins {
+    `java-library`
+}
+repositories {
+    mavenCentral()
+}
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
@@ -0,0 +1,238 @@
+package org.tdd.di.processor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+class ComponentPlan {
+    static final String INJECT = "jakarta.inject.Inject";
+    static final String LAZY = "org.tdd.di.Lazy";
+    static final String SUFFIX = "_ComponentProvider";
+
+    private final TypeElement component;
+    private final String packageName;
+    private final String providerSimpleName;
+    private final ExecutableElement constructor;
+    private final List<VariableElement> fields;
+    private final List<ExecutableElement> methods;
+    private final List<TypeMirror> dependencies = new ArrayList<>();
+
+    private ComponentPlan(TypeElement component, String packageName, String binaryName,
+                          ExecutableElement constructor, List<VariableElement> fields, List<ExecutableElement> methods) {
+        this.component = component;
+        this.packageName = packageName;
+        this.providerSimpleName = mangle(packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                + SUFFIX;
+        this.constructor = constructor;
+        this.fields = fields;
+        this.methods = methods;
+        fields.forEach(field -> dependencies.add(field.asType()));
+        constructor.getParameters().forEach(parameter -> dependencies.add(parameter.asType()));
+        methods.forEach(method -> method.getParameters().forEach(parameter -> dependencies.add(parameter.asType())));
+    }
+
+    // '_' becomes "__" and '$' becomes "_0", so nested and top-level classes never share a provider name; the
+    // container looks providers up by the same rule
+    static String mangle(String name) {
+        return name.replace("_", "__").replace("$", "_0");
+    }
+
+    // empty when the component cannot be wired from generated code, so that binding falls back to reflection
+    static Optional<ComponentPlan> of(TypeElement component, ProcessingEnvironment env) {
+        Elements elements = env.getElementUtils();
+        Types types = env.getTypeUtils();
+        String packageName = elements.getPackageOf(component).getQualifiedName().toString();
+        if (component.getKind() != ElementKind.CLASS || component.getModifiers().contains(Modifier.ABSTRACT)
+                || !component.getTypeParameters().isEmpty() || !isInstantiable(component, packageName))
+            return Optional.empty();
+
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement current = component; current != null && !current.getQualifiedName().contentEquals("java.lang.Object");
+             current = (TypeElement) types.asElement(current.getSuperclass()))
+            hierarchy.add(current);
+        if (hierarchy.stream().anyMatch(type -> hasInjectInterfaceMethod(type, types)))
+            return Optional.empty();
+
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(component.getEnclosedElements());
+        List<ExecutableElement> injectConstructors = constructors.stream().filter(ComponentPlan::isInject).toList();
+        if (injectConstructors.size() > 1) return Optional.empty();
+        Optional<ExecutableElement> constructor = injectConstructors.stream().findFirst()
+                .or(() -> constructors.stream().filter(c -> c.getParameters().isEmpty()).findFirst());
+        if (constructor.isEmpty() || !isAccessible(constructor.get(), packageName, elements))
+            return Optional.empty();
+
+        List<VariableElement> fields = new ArrayList<>();
+        for (TypeElement type : hierarchy)
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements()))
+                if (isInject(field)) {
+                    if (field.getModifiers().contains(Modifier.FINAL) || field.getModifiers().contains(Modifier.STATIC)
+                            || !isAccessible(field, packageName, elements))
+                        return Optional.empty();
+                    fields.add(field);
+                }
+        if (fields.stream().map(VariableElement::getSimpleName).distinct().count() < fields.size())
+            return Optional.empty();
+
+        List<ExecutableElement> effective = new ArrayList<>();
+        for (TypeElement type : hierarchy)
+            for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements()))
+                if (effective.stream().noneMatch(overrider -> elements.overrides(overrider, method, component)))
+                    effective.add(method);
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (TypeElement type : reversed(hierarchy))
+            for (ExecutableElement method : effective)
+                if (method.getEnclosingElement().equals(type) && isInject(method)
+                        && method.getModifiers().contains(Modifier.PUBLIC)) {
+                    if (!method.getTypeParameters().isEmpty() || method.getModifiers().contains(Modifier.STATIC)
+                            || !isAccessible(method, packageName, elements))
+                        return Optional.empty();
+                    methods.add(method);
+                }
+
+        // lazy dependencies are proxied by the reflective provider
+        if (fields.stream().anyMatch(field -> hasAnnotation(field, LAZY)) || Stream.concat(Stream.of(constructor.get()), methods.stream())
+                .flatMap(executable -> executable.getParameters().stream()).anyMatch(parameter -> hasAnnotation(parameter, LAZY)))
+            return Optional.empty();
+
+        ComponentPlan plan = new ComponentPlan(component, packageName, elements.getBinaryName(component).toString(),
+                constructor.get(), fields, methods);
+        return plan.dependencies.stream().allMatch(type -> isAccessible(type, packageName, elements))
+                ? Optional.of(plan) : Optional.empty();
+    }
+
+    String getProviderName() {
+        return packageName.isEmpty() ? providerSimpleName : packageName + "." + providerSimpleName;
+    }
+
+    String toSource() {
+        String componentName = component.getQualifiedName().toString();
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty())
+            source.append("package ").append(packageName).append(";\n\n");
+        source.append("@javax.annotation.processing.Generated(\"").append(ComponentProviderProcessor.class.getName()).append("\")\n")
+                .append("public final class ").append(providerSimpleName)
+                .append(" extends org.tdd.di.GeneratedComponentProvider<").append(componentName).append("> {\n")
+                .append("    public ").append(providerSimpleName).append("() {\n")
+                .append("        super(")
+                .append(dependencies.stream().map(ComponentPlan::toRef).collect(Collectors.joining(",")))
+                .append(");\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    @SuppressWarnings(\"unchecked\")\n")
+                .append("    public ").append(componentName).append(" getFrom(org.tdd.di.Container container) {\n");
+        body(source, componentName, index -> "dependency(container, " + index + ")");
+        source.append("    }\n\n")
+                .append("    @Override\n")
+                .append("    @SuppressWarnings(\"unchecked\")\n")
+                .append("    public ").append(componentName).append(" assemble(Object[] dependencies) {\n");
+        body(source, componentName, index -> "dependencies[" + index + "]");
+        return source.append("    }\n")
+                .append("}\n").toString();
+    }
+
+    private void body(StringBuilder source, String componentName, IntFunction<String> dependency) {
+        source.append("        ").append(componentName).append(" instance = new ").append(componentName)
+                .append("(").append(arguments(constructor, fields.size(), dependency)).append(");\n");
+        for (int i = 0; i < fields.size(); i++)
+            source.append("        instance.").append(fields.get(i).getSimpleName()).append(" = ")
+                    .append(resolve(i, dependency)).append(";\n");
+        int index = fields.size() + constructor.getParameters().size();
+        for (ExecutableElement method : methods) {
+            source.append("        instance.").append(method.getSimpleName()).append("(")
+                    .append(arguments(method, index, dependency)).append(");\n");
+            index += method.getParameters().size();
+        }
+        source.append("        return instance;\n");
+    }
+
+    private String arguments(ExecutableElement executable, int offset, IntFunction<String> dependency) {
+        return IntStream.range(0, executable.getParameters().size()).mapToObj(i -> resolve(offset + i, dependency))
+                .collect(Collectors.joining(", "));
+    }
+
+    private String resolve(int index, IntFunction<String> dependency) {
+        return "(" + dependencies.get(index) + ") " + dependency.apply(index);
+    }
+
+    private static String toRef(TypeMirror type) {
+        if (type instanceof DeclaredType declared && !declared.getTypeArguments().isEmpty())
+            return "\n                new org.tdd.di.ContainerBuilder.Ref<" + type + ">() {\n                }";
+        return "\n                org.tdd.di.ContainerBuilder.Ref.of(" + type + ".class)";
+    }
+
+    private static boolean isInject(Element element) {
+        return hasAnnotation(element, INJECT);
+    }
+
+    private static boolean hasAnnotation(Element element, String name) {
+        return element.getAnnotationMirrors().stream().anyMatch(annotation ->
+                ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(name));
+    }
+
+    private static boolean hasInjectInterfaceMethod(TypeElement type, Types types) {
+        return type.getInterfaces().stream().map(types::asElement).map(TypeElement.class::cast).anyMatch(i ->
+                ElementFilter.methodsIn(i.getEnclosedElements()).stream().anyMatch(ComponentPlan::isInject)
+                        || hasInjectInterfaceMethod(i, types));
+    }
+
+    private static boolean isInstantiable(TypeElement component, String packageName) {
+        if (component.getNestingKind() == NestingKind.LOCAL || component.getNestingKind() == NestingKind.ANONYMOUS)
+            return false;
+        if (component.getNestingKind() == NestingKind.MEMBER && !component.getModifiers().contains(Modifier.STATIC))
+            return false;
+        return isAccessible(component, packageName);
+    }
+
+    private static boolean isAccessible(TypeElement type, String packageName) {
+        for (Element current = type; current instanceof TypeElement; current = current.getEnclosingElement())
+            if (current.getModifiers().contains(Modifier.PRIVATE))
+                return false;
+        return type.getModifiers().contains(Modifier.PUBLIC) || packageOf(type).equals(packageName);
+    }
+
+    private static boolean isAccessible(Element member, String packageName, Elements elements) {
+        TypeElement declaring = (TypeElement) member.getEnclosingElement();
+        if (member.getModifiers().contains(Modifier.PRIVATE) || !isAccessible(declaring, packageName))
+            return false;
+        return member.getModifiers().contains(Modifier.PUBLIC)
+                || elements.getPackageOf(declaring).getQualifiedName().contentEquals(packageName);
+    }
+
+    private static boolean isAccessible(TypeMirror type, String packageName, Elements elements) {
+        return switch (type.getKind()) {
+            case BOOLEAN, BYTE, SHORT, INT, LONG, CHAR, FLOAT, DOUBLE -> true;
+            case ARRAY -> ((ArrayType) type).getComponentType() instanceof DeclaredType component
+                    ? component.getTypeArguments().isEmpty() && isAccessible(component, packageName, elements)
+                    : isAccessible(((ArrayType) type).getComponentType(), packageName, elements);
+            case DECLARED -> isAccessible((TypeElement) ((DeclaredType) type).asElement(), packageName)
+                    && ((DeclaredType) type).getTypeArguments().stream().allMatch(argument -> isAccessible(argument, packageName, elements));
+            case WILDCARD -> {
+                WildcardType wildcard = (WildcardType) type;
+                yield (wildcard.getExtendsBound() == null || isAccessible(wildcard.getExtendsBound(), packageName, elements))
+                        && (wildcard.getSuperBound() == null || isAccessible(wildcard.getSuperBound(), packageName, elements));
+            }
+            default -> false;
+        };
+    }
+
+    private static String packageOf(Element element) {
+        Element current = element;
+        while (!(current instanceof PackageElement))
+            current = current.getEnclosingElement();
+        return ((PackageElement) current).getQualifiedName().toString();
+    }
+
+    private static <T> List<T> reversed(List<T> list) {
+        List<T> reversed = new ArrayList<>(list);
+        Collections.reverse(reversed);
+        return reversed;
+    }
+}
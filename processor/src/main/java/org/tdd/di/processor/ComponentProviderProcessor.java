@@ -0,0 +1,85 @@
+package org.tdd.di.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@SupportedAnnotationTypes(ComponentPlan.INJECT)
+public class ComponentProviderProcessor extends AbstractProcessor {
+    static final String INDEX = "META-INF/org.tdd.di/components";
+
+    private final Set<String> processed = new HashSet<>();
+    private final List<String> index = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!index.isEmpty()) writeIndex();
+            return false;
+        }
+        for (TypeElement annotation : annotations)
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation))
+                if (element.getEnclosingElement() instanceof TypeElement component
+                        && processed.add(component.getQualifiedName().toString())) {
+                    Optional<ComponentPlan> plan = ComponentPlan.of(component, processingEnv);
+                    plan.ifPresent(it -> write(it, component));
+                    if (isIndexable(component))
+                        index.add(indexEntry(component, plan));
+                }
+        return false;
+    }
+
+    private void write(ComponentPlan plan, TypeElement component) {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(plan.getProviderName(), component).openWriter()) {
+            writer.write(plan.toSource());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), component);
+        }
+    }
+
+    // one line per component: binary name, generated provider (or -), and the types it can be bound to
+    private String indexEntry(TypeElement component, Optional<ComponentPlan> plan) {
+        return String.join("\t", binaryName(component), plan.map(ComponentPlan::getProviderName).orElse("-"),
+                Stream.concat(Stream.of(binaryName(component)), component.getInterfaces().stream().map(this::binaryName))
+                        .collect(Collectors.joining(",")));
+    }
+
+    private void writeIndex() {
+        try (Writer writer = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX).openWriter()) {
+            for (String entry : index)
+                writer.write(entry + "\n");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage());
+        }
+    }
+
+    private static boolean isIndexable(TypeElement component) {
+        return component.getKind() == ElementKind.CLASS && !component.getModifiers().contains(Modifier.ABSTRACT)
+                && component.getTypeParameters().isEmpty()
+                && (component.getNestingKind() == NestingKind.TOP_LEVEL
+                || component.getNestingKind() == NestingKind.MEMBER && component.getModifiers().contains(Modifier.STATIC));
+    }
+
+    private String binaryName(TypeMirror type) {
+        return binaryName((TypeElement) processingEnv.getTypeUtils().asElement(type));
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+}
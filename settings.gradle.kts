@@ -1,2 +1,2 @@
 rootProject.name = "TDD-DI"
-
+include("processor")
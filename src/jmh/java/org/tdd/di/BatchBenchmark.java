@@ -0,0 +1,61 @@
+package org.tdd.di;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.openjdk.jmh.annotations.*;
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+    @Param({"1000"})
+    int count;
+
+    private Container container;
+
+    @Setup
+    public void setup() {
+        container = new ContainerBuilder().bind(Handler.class, Handler.class).bind(Codec.class, Codec.class)
+                .bind(Metrics.class, Metrics.class).build();
+    }
+
+    @Benchmark
+    public List<Handler> get() {
+        List<Handler> handlers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            handlers.add(container.get(Ref.of(Handler.class)).get());
+        return handlers;
+    }
+
+    @Benchmark
+    public List<Handler> getMany() {
+        return container.getMany(Ref.of(Handler.class), count);
+    }
+
+    @Benchmark
+    public List<Handler> parallelStream() {
+        return container.getStream(Ref.of(Handler.class), count).parallel().toList();
+    }
+
+    static class Handler {
+        @Inject
+        Codec codec;
+        @Inject
+        Metrics metrics;
+    }
+
+    static class Codec {
+    }
+
+    @Singleton
+    static class Metrics {
+    }
+}
@@ -0,0 +1,64 @@
+package org.tdd.di;
+
+import jakarta.inject.Inject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// every invocation binds classes never analysed before, so the per-class analysis cache cannot hide the work
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BootstrapBenchmark {
+    @Param({"2000"})
+    int bindings;
+
+    private List<Class<?>> components;
+
+    @Setup(Level.Invocation)
+    public void define() {
+        components = SyntheticComponents.define(AnalysedComponent.class, bindings);
+    }
+
+    @Benchmark
+    public Container sequential() {
+        return bindAll(new ContainerBuilder()).build();
+    }
+
+    @Benchmark
+    public Container parallel() {
+        return bindAll(new ContainerBuilder().analyseOn(ForkJoinPool.commonPool())).build();
+    }
+
+    private ContainerBuilder bindAll(ContainerBuilder builder) {
+        builder.bind(Dependency.class, new Dependency());
+        for (Class<?> component : components)
+            builder.bind((Class<Object>) component, (Object) component);
+        return builder;
+    }
+
+    static class Dependency {
+    }
+
+    static class AnalysedComponent {
+        @Inject
+        Dependency first;
+        @Inject
+        Dependency second;
+        Dependency third;
+
+        @Inject
+        AnalysedComponent(Dependency dependency) {
+        }
+
+        @Inject
+        public void setThird(Dependency third) {
+            this.third = third;
+        }
+    }
+}
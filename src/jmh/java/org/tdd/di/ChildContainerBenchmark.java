@@ -0,0 +1,45 @@
+package org.tdd.di;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChildContainerBenchmark {
+    @Param({"10000"})
+    int bindings;
+
+    private List<Class<?>> components;
+    private Container parent;
+
+    @Setup
+    public void setup() {
+        components = SyntheticComponents.define(bindings);
+        parent = bindAll(new ContainerBuilder()).build();
+    }
+
+    @Benchmark
+    public Container child() {
+        return new ContainerBuilder(parent).bind(Tenant.class, new Tenant()).build();
+    }
+
+    @Benchmark
+    public Container rebuild() {
+        return bindAll(new ContainerBuilder()).bind(Tenant.class, new Tenant()).build();
+    }
+
+    private ContainerBuilder bindAll(ContainerBuilder builder) {
+        for (Class<?> component : components)
+            builder.bind((Class<Object>) component, (Object) component);
+        return builder;
+    }
+
+    static class Tenant {
+    }
+}
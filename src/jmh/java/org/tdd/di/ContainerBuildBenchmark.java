@@ -0,0 +1,49 @@
+package org.tdd.di;
+
+import org.openjdk.jmh.annotations.*;
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// components form chains of the given depth, each depending on the previous one in its chain
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContainerBuildBenchmark {
+    @Param({"100", "10000"})
+    int size;
+    @Param({"1", "10", "100"})
+    int depth;
+
+    private ContainerBuilder builder;
+
+    @Setup
+    public void setup() {
+        List<Class<?>> components = SyntheticComponents.define(size);
+        builder = new ContainerBuilder();
+        for (int i = 0; i < size; i++) {
+            Object instance = new Object();
+            List<Ref<?>> dependencies = i % depth == 0 ? List.of() : List.of(Ref.of(components.get(i - 1)));
+            builder.bindProvider(components.get(i), new ComponentProvider<>() {
+                @Override
+                public Object getFrom(Container container) {
+                    return instance;
+                }
+
+                @Override
+                public List<Ref<?>> getDependencies() {
+                    return dependencies;
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public Container build() {
+        return builder.build();
+    }
+}
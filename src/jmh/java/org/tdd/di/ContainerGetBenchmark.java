@@ -0,0 +1,87 @@
+package org.tdd.di;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import org.openjdk.jmh.annotations.*;
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.util.concurrent.TimeUnit;
+
+// injected components are bound to InjectComponentProvider directly, bypassing generated providers
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContainerGetBenchmark {
+    private static final Ref<Dependency> DEPENDENCY = Ref.of(Dependency.class);
+    private static final Ref<ConstructorInjection> CONSTRUCTOR = Ref.of(ConstructorInjection.class);
+    private static final Ref<FieldInjection> FIELD = Ref.of(FieldInjection.class);
+    private static final Ref<MethodInjection> METHOD = Ref.of(MethodInjection.class);
+    private static final Ref<Provider<Dependency>> PROVIDER = new Ref<>() {
+    };
+
+    private Container container;
+
+    @Setup
+    public void setup() {
+        container = new ContainerBuilder()
+                .bind(Dependency.class, new Dependency())
+                .bindProvider(ConstructorInjection.class, new InjectComponentProvider<>(ConstructorInjection.class))
+                .bindProvider(FieldInjection.class, new InjectComponentProvider<>(FieldInjection.class))
+                .bindProvider(MethodInjection.class, new InjectComponentProvider<>(MethodInjection.class))
+                .build();
+    }
+
+    @Benchmark
+    public Object instance() {
+        return container.get(DEPENDENCY).get();
+    }
+
+    @Benchmark
+    public Object constructor() {
+        return container.get(CONSTRUCTOR).get();
+    }
+
+    @Benchmark
+    public Object field() {
+        return container.get(FIELD).get();
+    }
+
+    @Benchmark
+    public Object method() {
+        return container.get(METHOD).get();
+    }
+
+    @Benchmark
+    public Object provider() {
+        return container.get(PROVIDER).get().get();
+    }
+
+    static class Dependency {
+    }
+
+    static class ConstructorInjection {
+        final Dependency dependency;
+
+        @Inject
+        ConstructorInjection(Dependency dependency) {
+            this.dependency = dependency;
+        }
+    }
+
+    static class FieldInjection {
+        @Inject
+        Dependency dependency;
+    }
+
+    static class MethodInjection {
+        Dependency dependency;
+
+        @Inject
+        public void setDependency(Dependency dependency) {
+            this.dependency = dependency;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.tdd.di;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.AnnotatedElement;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+// every invocation discovers components through a fresh class loader so that nothing is already loaded
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DiscoveryBenchmark {
+    private static final String INJECT = "jakarta.inject.Inject";
+
+    private final List<Path> classPath = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+            .map(Path::of).filter(Files::exists).toList();
+    private URLClassLoader classLoader;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        classLoader = new URLClassLoader(classPath.stream().map(DiscoveryBenchmark::toUrl).toArray(URL[]::new),
+                ClassLoader.getPlatformClassLoader());
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws IOException {
+        classLoader.close();
+    }
+
+    @Benchmark
+    public List<Class<?>> index() throws ClassNotFoundException {
+        List<Class<?>> components = new ArrayList<>();
+        for (IndexedComponents.Entry entry : IndexedComponents.read(classLoader))
+            components.add(Class.forName(entry.component(), false, classLoader));
+        return components;
+    }
+
+    @Benchmark
+    public List<Class<?>> scan() throws IOException {
+        List<Class<?>> components = new ArrayList<>();
+        for (Path entry : classPath)
+            for (String name : classNames(entry))
+                try {
+                    Class<?> type = Class.forName(name, false, classLoader);
+                    if (isComponent(type)) components.add(type);
+                } catch (ClassNotFoundException | LinkageError ignored) {
+                }
+        return components;
+    }
+
+    private static List<String> classNames(Path entry) throws IOException {
+        if (Files.isDirectory(entry))
+            try (Stream<Path> files = Files.walk(entry)) {
+                return files.map(file -> entry.relativize(file).toString().replace(File.separatorChar, '/'))
+                        .filter(DiscoveryBenchmark::isClass).map(DiscoveryBenchmark::toClassName).toList();
+            }
+        try (JarFile jar = new JarFile(entry.toFile())) {
+            return jar.stream().map(JarEntry::getName).filter(DiscoveryBenchmark::isClass)
+                    .map(DiscoveryBenchmark::toClassName).toList();
+        }
+    }
+
+    private static boolean isClass(String file) {
+        return file.endsWith(".class") && !file.startsWith("META-INF/") && !file.endsWith("-info.class");
+    }
+
+    private static String toClassName(String file) {
+        return file.substring(0, file.length() - ".class".length()).replace('/', '.');
+    }
+
+    // the annotation is matched by name because the fresh loader defines its own copy of it
+    private static boolean isComponent(Class<?> type) {
+        return Stream.of(type.getDeclaredConstructors(), type.getDeclaredFields(), type.getDeclaredMethods())
+                .flatMap(Arrays::stream).anyMatch(DiscoveryBenchmark::isInject);
+    }
+
+    private static boolean isInject(AccessibleObject member) {
+        return Arrays.stream(((AnnotatedElement) member).getAnnotations())
+                .anyMatch(annotation -> annotation.annotationType().getName().equals(INJECT));
+    }
+
+    private static URL toUrl(Path path) {
+        try {
+            return path.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.tdd.di;
+
+import jakarta.inject.Inject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InjectComponentProviderBenchmark {
+    private Container container;
+    private ComponentProvider<Component> compiled;
+    private ComponentProvider<Component> reflective;
+
+    @Setup
+    public void setup() {
+        container = new ContainerBuilder().bind(Dependency.class, new Dependency() {
+        }).build();
+        compiled = new InjectComponentProvider<>(Component.class);
+        reflective = new ReflectiveComponentProvider<>(Component.class);
+    }
+
+    @Benchmark
+    public Component compiled() {
+        return compiled.getFrom(container);
+    }
+
+    @Benchmark
+    public Component reflective() {
+        return reflective.getFrom(container);
+    }
+
+    @Benchmark
+    public ComponentProvider<Component> analysed() {
+        return new InjectComponentProvider<>(Component.class);
+    }
+
+    @Benchmark
+    public ComponentProvider<Component> analyse() {
+        return new InjectComponentProvider<>(InjectComponentProvider.Members.of(Component.class));
+    }
+
+    interface Dependency {
+    }
+
+    static class Component {
+        final Dependency constructorDependency;
+        @Inject
+        Dependency fieldDependency;
+        Dependency methodDependency;
+
+        @Inject
+        public Component(Dependency dependency) {
+            constructorDependency = dependency;
+        }
+
+        @Inject
+        public void setDependency(Dependency dependency) {
+            methodDependency = dependency;
+        }
+    }
+}
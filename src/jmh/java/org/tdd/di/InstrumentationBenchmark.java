@@ -0,0 +1,51 @@
+package org.tdd.di;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.openjdk.jmh.annotations.*;
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.util.concurrent.TimeUnit;
+
+// flight recorder is not recording here, so this is the cost of counters and disabled events
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+    private static final Ref<Component> COMPONENT = Ref.of(Component.class);
+    private static final Ref<Dependency> DEPENDENCY = Ref.of(Dependency.class);
+
+    @Param({"false", "true"})
+    boolean instrumented;
+
+    private Container container;
+
+    @Setup
+    public void setup() {
+        ContainerBuilder builder = new ContainerBuilder().bind(Component.class, Component.class)
+                .bind(Dependency.class, Dependency.class);
+        container = (instrumented ? builder.instrument() : builder).build();
+    }
+
+    @Benchmark
+    public Object prototype() {
+        return container.get(COMPONENT).get();
+    }
+
+    @Benchmark
+    public Object singleton() {
+        return container.get(DEPENDENCY).get();
+    }
+
+    static class Component {
+        @Inject
+        Dependency dependency;
+    }
+
+    @Singleton
+    static class Dependency {
+    }
+}
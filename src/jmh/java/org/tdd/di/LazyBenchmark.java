@@ -0,0 +1,64 @@
+package org.tdd.di;
+
+import jakarta.inject.Inject;
+import org.openjdk.jmh.annotations.*;
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LazyBenchmark {
+    private Container container;
+
+    @Setup
+    public void setup() {
+        container = new ContainerBuilder().bind(Report.class, HeavyReport.class)
+                .bind(EagerController.class, EagerController.class).bind(LazyController.class, LazyController.class).build();
+    }
+
+    @Benchmark
+    public EagerController eager() {
+        return container.get(Ref.of(EagerController.class)).get();
+    }
+
+    @Benchmark
+    public LazyController lazy() {
+        return container.get(Ref.of(LazyController.class)).get();
+    }
+
+    public interface Report {
+        int size();
+    }
+
+    public static class HeavyReport implements Report {
+        final byte[] buffer = new byte[16 * 1024];
+
+        @Override
+        public int size() {
+            return buffer.length;
+        }
+    }
+
+    public static class EagerController {
+        final Report report;
+
+        @Inject
+        public EagerController(Report report) {
+            this.report = report;
+        }
+    }
+
+    public static class LazyController {
+        final Report report;
+
+        @Inject
+        public LazyController(@Lazy Report report) {
+            this.report = report;
+        }
+    }
+}
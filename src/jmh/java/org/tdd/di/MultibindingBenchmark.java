@@ -0,0 +1,76 @@
+package org.tdd.di;
+
+import jakarta.inject.Inject;
+import org.openjdk.jmh.annotations.*;
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// handler lists resolved per request: through a multibinding, injected into a dispatcher, and by looking
+// up each separately bound handler in a loop
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultibindingBenchmark {
+    private static final Ref<List<Handler>> HANDLERS = new Ref<>() {
+    };
+    private static final Ref<Map<String, Handler>> KEYED_HANDLERS = new Ref<>() {
+    };
+    private static final Ref<Dispatcher> DISPATCHER = Ref.of(Dispatcher.class);
+
+    @Param({"16"})
+    int handlers;
+
+    private Container container;
+    private List<Ref<Object>> lookups;
+
+    @Setup
+    public void setup() {
+        ContainerBuilder builder = new ContainerBuilder().bind(Dispatcher.class, Dispatcher.class);
+        lookups = new ArrayList<>();
+        for (Class<?> type : SyntheticComponents.define(handlers)) {
+            Handler handler = new Handler();
+            builder.bindInto(Handler.class, handler).bindInto(Handler.class, type.getName(), handler)
+                    .bind((Class<Object>) type, (Object) handler);
+            lookups.add(Ref.of((Class<Object>) type));
+        }
+        container = builder.build();
+    }
+
+    @Benchmark
+    public List<Handler> list() {
+        return container.get(HANDLERS).get();
+    }
+
+    @Benchmark
+    public Map<String, Handler> map() {
+        return container.get(KEYED_HANDLERS).get();
+    }
+
+    @Benchmark
+    public Dispatcher injected() {
+        return container.get(DISPATCHER).get();
+    }
+
+    @Benchmark
+    public List<Object> lookupLoop() {
+        List<Object> result = new ArrayList<>(lookups.size());
+        for (Ref<Object> lookup : lookups)
+            result.add(container.get(lookup).get());
+        return result;
+    }
+
+    static class Handler {
+    }
+
+    static class Dispatcher {
+        @Inject
+        List<Handler> handlers;
+    }
+}
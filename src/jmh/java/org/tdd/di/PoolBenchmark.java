@@ -0,0 +1,56 @@
+package org.tdd.di;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoolBenchmark {
+    private Container container;
+    private Pooled<PooledBuffer> pool;
+
+    @Setup
+    public void setup() {
+        container = new ContainerBuilder().scope(PerPool.class, ScopeProvider.pooled(PoolConfig.of(16)))
+                .bind(Buffer.class, Buffer.class).bind(PooledBuffer.class, PooledBuffer.class).build();
+        pool = container.get(new Ref<Pooled<PooledBuffer>>() {
+        }).get();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void prototype(Blackhole blackhole) {
+        blackhole.consume(container.get(Ref.of(Buffer.class)).get().bytes[0]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void pooled(Blackhole blackhole) {
+        try (Pooled.Lease<PooledBuffer> lease = pool.borrow()) {
+            blackhole.consume(lease.get().bytes[0]);
+        }
+    }
+
+    @jakarta.inject.Scope
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface PerPool {
+    }
+
+    static class Buffer {
+        final byte[] bytes = new byte[64 * 1024];
+    }
+
+    @PerPool
+    static class PooledBuffer {
+        final byte[] bytes = new byte[64 * 1024];
+    }
+}
@@ -0,0 +1,65 @@
+package org.tdd.di;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// chained wires every component to the one before it, so the base graph has as many reverse edges as bindings
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RebuildBenchmark {
+    @Param({"100", "10000"})
+    int bindings;
+
+    @Param({"false", "true"})
+    boolean chained;
+
+    private List<Class<?>> components;
+    private Container container;
+
+    @Setup
+    public void setup() {
+        components = SyntheticComponents.define(bindings);
+        container = bindAll(new ContainerBuilder()).bind(Settings.class, new Settings()).build();
+        container.rebuild().build();
+    }
+
+    @Benchmark
+    public Container rebuild() {
+        return container.rebuild().bind(Settings.class, new Settings()).build();
+    }
+
+    @Benchmark
+    public Container build() {
+        return bindAll(new ContainerBuilder()).bind(Settings.class, new Settings()).build();
+    }
+
+    private ContainerBuilder bindAll(ContainerBuilder builder) {
+        for (int i = 0; i < components.size(); i++) {
+            Class<Object> component = (Class<Object>) components.get(i);
+            if (!chained || i == 0) builder.bind(component, (Object) component);
+            else builder.bindProvider(component, new Chained(ContainerBuilder.Ref.of(components.get(i - 1))));
+        }
+        return builder;
+    }
+
+    record Chained(ContainerBuilder.Ref<?> previous) implements ComponentProvider<Object> {
+        @Override
+        public Object getFrom(Container container) {
+            return container.get(previous).get();
+        }
+
+        @Override
+        public List<ContainerBuilder.Ref<?>> getDependencies() {
+            return List.of(previous);
+        }
+    }
+
+    static class Settings {
+    }
+}
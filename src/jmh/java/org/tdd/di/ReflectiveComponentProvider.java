@@ -0,0 +1,49 @@
+package org.tdd.di;
+
+import jakarta.inject.Inject;
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.lang.reflect.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class ReflectiveComponentProvider<T> implements ComponentProvider<T> {
+    private final Constructor<T> constructor;
+    private final List<Field> fields;
+    private final List<Method> methods;
+
+    ReflectiveComponentProvider(Class<? extends T> component) {
+        constructor = (Constructor<T>) Arrays.stream(component.getDeclaredConstructors())
+                .filter(c -> c.isAnnotationPresent(Inject.class)).findFirst()
+                .orElseGet(() -> (Constructor) Arrays.stream(component.getDeclaredConstructors())
+                        .filter(c -> c.getParameterCount() == 0).findFirst().orElseThrow());
+        fields = new ArrayList<>();
+        for (Class<?> current = component; current != Object.class; current = current.getSuperclass())
+            Arrays.stream(current.getDeclaredFields()).filter(f -> f.isAnnotationPresent(Inject.class)).forEach(fields::add);
+        methods = Arrays.stream(component.getMethods()).filter(m -> m.isAnnotationPresent(Inject.class)).collect(Collectors.toList());
+        Collections.reverse(methods);
+    }
+
+    @Override
+    public T getFrom(Container container) {
+        try {
+            T instance = constructor.newInstance(toDependencies(constructor, container));
+            for (Field field : fields)
+                field.set(instance, container.get(Ref.of(field.getGenericType())).get());
+            for (Method method : methods)
+                method.invoke(instance, toDependencies(method, container));
+            return instance;
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Object[] toDependencies(Executable executable, Container container) {
+        return Arrays.stream(executable.getParameters())
+                .map(Parameter::getParameterizedType)
+                .map(type -> container.get(Ref.of(type)).get()).toArray();
+    }
+}
@@ -0,0 +1,49 @@
+package org.tdd.di;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryBenchmark {
+    @Param({"10000", "100000"})
+    int bindings;
+
+    private Class<?>[] lookups;
+    private Map<Class<?>, ComponentProvider<?>> map;
+    private ComponentIndex index;
+    private ComponentProvider<?>[] providers;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        List<Class<?>> components = SyntheticComponents.define(bindings);
+        map = new HashMap<>();
+        components.forEach(component -> map.put(component, container -> component));
+        index = new ComponentIndex(map.keySet());
+        providers = map.values().toArray(ComponentProvider<?>[]::new);
+        Collections.shuffle(components, new Random(42));
+        lookups = components.toArray(Class<?>[]::new);
+    }
+
+    @Benchmark
+    public ComponentProvider<?> hashMap() {
+        return map.get(next());
+    }
+
+    @Benchmark
+    public ComponentProvider<?> denseIndex() {
+        return providers[index.idOf(next())];
+    }
+
+    private Class<?> next() {
+        if (++cursor == lookups.length) cursor = 0;
+        return lookups[cursor];
+    }
+}
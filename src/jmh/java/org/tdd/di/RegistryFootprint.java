@@ -0,0 +1,47 @@
+package org.tdd.di;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public class RegistryFootprint {
+    private static final int COPIES = 20;
+
+    public static void main(String[] args) {
+        for (int bindings : new int[]{10_000, 100_000}) {
+            List<Class<?>> components = SyntheticComponents.define(bindings);
+            ComponentProvider<?> provider = container -> null;
+            long map = retained(components, keys -> {
+                Map<Class<?>, ComponentProvider<?>> providers = new HashMap<>();
+                keys.forEach(key -> providers.put(key, provider));
+                return providers;
+            });
+            long dense = retained(components, keys -> {
+                ComponentProvider<?>[] providers = new ComponentProvider<?>[keys.size()];
+                Arrays.fill(providers, provider);
+                return new Object[]{new ComponentIndex(keys), providers};
+            });
+            System.out.printf("%,d bindings: HashMap %,d bytes, dense registry %,d bytes%n", bindings, map, dense);
+        }
+    }
+
+    // averages over several live copies so that unrelated heap noise is amortized
+    private static long retained(List<Class<?>> components, Function<List<Class<?>>, Object> registry) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Object[] retained = new Object[COPIES];
+        long before = used(memory);
+        for (int i = 0; i < COPIES; i++)
+            retained[i] = registry.apply(components);
+        long after = used(memory);
+        return retained.length == 0 ? 0 : (after - before) / COPIES;
+    }
+
+    private static long used(MemoryMXBean memory) {
+        for (int i = 0; i < 5; i++) System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,40 @@
+package org.tdd.di;
+
+import jakarta.inject.Singleton;
+import org.openjdk.jmh.annotations.*;
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+public class SingletonBenchmark {
+    private final Ref<Service> ref = Ref.of(Service.class);
+    private ComponentProvider<Service> provider;
+    private Container container;
+
+    @Setup
+    public void setup() {
+        container = new ContainerBuilder().bind(Service.class, Service.class).build();
+        provider = new SingletonComponentProvider<>(new InjectComponentProvider<>(Service.class));
+    }
+
+    @Benchmark
+    public Service provider() {
+        return provider.getFrom(container);
+    }
+
+    @Benchmark
+    public Service container() {
+        return container.get(ref).get();
+    }
+
+    @Singleton
+    static class Service {
+    }
+}
@@ -0,0 +1,41 @@
+package org.tdd.di;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+
+final class SyntheticComponents {
+    private SyntheticComponents() {
+    }
+
+    // defines count distinct hidden classes from the bytes of Component
+    static List<Class<?>> define(int count) {
+        return define(Component.class, count);
+    }
+
+    static List<Class<?>> define(Class<?> template, int count) {
+        byte[] bytes = bytesOf(template);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<Class<?>> components = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++)
+                components.add(lookup.defineHiddenClass(bytes, false).lookupClass());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        return components;
+    }
+
+    private static byte[] bytesOf(Class<?> type) {
+        try (InputStream input = type.getResourceAsStream(type.getName().substring(type.getPackageName().length() + 1) + ".class")) {
+            return input.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static class Component {
+    }
+}
@@ -0,0 +1,55 @@
+package org.tdd.di;
+
+import jakarta.inject.Inject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the first request in a fresh JVM, so nothing but the warmup at build has compiled the resolution paths yet
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class WarmupBenchmark {
+    @Param({"200"})
+    int bindings;
+
+    @Param({"0", "100"})
+    int iterations;
+
+    private List<Class<?>> components;
+    private Container container;
+
+    @Setup(Level.Trial)
+    public void build() {
+        components = SyntheticComponents.define(WarmedComponent.class, bindings);
+        ContainerBuilder builder = new ContainerBuilder().bind(Dependency.class, Dependency.class);
+        for (Class<?> component : components)
+            builder.bind((Class<Object>) component, (Object) component);
+        if (iterations > 0) builder.warmup(iterations);
+        container = builder.build();
+    }
+
+    @Benchmark
+    public Object firstRequest() {
+        Object last = null;
+        for (Class<?> component : components)
+            last = container.get(ContainerBuilder.Ref.of(component)).get();
+        return last;
+    }
+
+    static class Dependency {
+    }
+
+    static class WarmedComponent {
+        @Inject
+        Dependency first;
+
+        @Inject
+        WarmedComponent(Dependency dependency) {
+        }
+    }
+}
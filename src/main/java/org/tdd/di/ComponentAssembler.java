@@ -0,0 +1,15 @@
+package org.tdd.di;
+
+// builds a component from dependency values already resolved, given in the order of getDependencies
+interface ComponentAssembler<T> extends ComponentProvider<T> {
+    T assemble(Object[] dependencies);
+
+    // a lazy dependency is not resolved ahead: it is given as the Provider it resolves from instead
+    default boolean isLazy(int dependency) {
+        return false;
+    }
+
+    default T assemble(Object[] dependencies, Container container) {
+        return assemble(dependencies);
+    }
+}
@@ -0,0 +1,134 @@
+package org.tdd.di;
+
+import org.tdd.di.ContainerBuilder.Contribution;
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.lang.annotation.Annotation;
+import java.util.*;
+
+// what a rebuild starts from: the providers behind every id before and after scoping, the contributions behind
+// every multibinding, and who depends on each component or multibinding, which is only worked out once asked for
+final class ComponentGraph {
+    final ComponentIndex index;
+    final ComponentProvider<?>[] unscoped;
+    final Class<? extends Annotation>[] scopes;
+    final ComponentProvider<?>[] providers;
+    final BitSet singletons;
+    final ComponentStatistics[] statistics;
+    final Multibindings multibindings;
+    final Map<Class<?>, List<Contribution>> collectionContributions;
+    final Map<Class<?>, Map<String, Contribution>> mapContributions;
+    final Map<Class<? extends Annotation>, ScopeProvider> scopeProviders;
+    final boolean instrumented;
+    final boolean profiled;
+    private Dependents dependents;
+
+    ComponentGraph(ComponentIndex index, ComponentProvider<?>[] unscoped, Class<? extends Annotation>[] scopes,
+                   ComponentProvider<?>[] providers, BitSet singletons, ComponentStatistics[] statistics,
+                   Multibindings multibindings, Map<Class<?>, List<Contribution>> collectionContributions,
+                   Map<Class<?>, Map<String, Contribution>> mapContributions,
+                   Map<Class<? extends Annotation>, ScopeProvider> scopeProviders, boolean instrumented,
+                   boolean profiled, Dependents dependents) {
+        this.index = index;
+        this.unscoped = unscoped;
+        this.scopes = scopes;
+        this.providers = providers;
+        this.singletons = singletons;
+        this.statistics = statistics;
+        this.multibindings = multibindings;
+        this.collectionContributions = collectionContributions;
+        this.mapContributions = mapContributions;
+        this.scopeProviders = scopeProviders;
+        this.instrumented = instrumented;
+        this.profiled = profiled;
+        this.dependents = dependents;
+    }
+
+    // a node is the component class of a binding, or the Multibindings.Key of a multibinding
+    static Object nodeOf(Ref<?> ref) {
+        return Multibindings.isMultibinding(ref) ? Multibindings.Key.of(ref) : ref.getComponent();
+    }
+
+    static List<Ref<?>> dependenciesOf(Collection<Contribution> contributions) {
+        return contributions.stream().flatMap(contribution -> contribution.provider().getDependencies().stream()).toList();
+    }
+
+    synchronized Dependents dependents() {
+        if (dependents == null) {
+            Map<Object, List<Object>> result = new HashMap<>();
+            for (int id = 0; id < unscoped.length; id++)
+                for (Ref<?> dependency : unscoped[id].getDependencies())
+                    result.computeIfAbsent(nodeOf(dependency), it -> new ArrayList<>()).add(index.componentOf(id));
+            collectionContributions.forEach((type, contributions) -> {
+                for (Ref<?> dependency : dependenciesOf(contributions))
+                    result.computeIfAbsent(nodeOf(dependency), it -> new ArrayList<>()).add(new Multibindings.Key(type, false));
+            });
+            mapContributions.forEach((type, contributions) -> {
+                for (Ref<?> dependency : dependenciesOf(contributions.values()))
+                    result.computeIfAbsent(nodeOf(dependency), it -> new ArrayList<>()).add(new Multibindings.Key(type, true));
+            });
+            dependents = new Dependents(null, result);
+        }
+        return dependents;
+    }
+
+    // the dependents of every node, kept as the lists a rebuild replaced laid over those of the graph it started
+    // from, so a rebuild costs what it changes rather than a copy of every edge. The layers above the first are
+    // merged once there are too many of them to walk, and into the first once they hold as many nodes as it does
+    static final class Dependents {
+        private static final int MAX_LAYERS = 8;
+        private final Dependents base;
+        private final Map<Object, List<Object>> edges;
+        private final int layers;
+
+        private Dependents(Dependents base, Map<Object, List<Object>> edges) {
+            this.base = base;
+            this.edges = edges;
+            this.layers = base == null ? 1 : base.layers + 1;
+        }
+
+        List<Object> of(Object node) {
+            for (Dependents layer = this; layer != null; layer = layer.base) {
+                List<Object> nodes = layer.edges.get(node);
+                if (nodes != null) return nodes;
+            }
+            return List.of();
+        }
+
+        // an empty layer for a rebuild to replace edges in, leaving this one untouched
+        Dependents overlay() {
+            if (layers < MAX_LAYERS) return new Dependents(this, new HashMap<>());
+            Dependents root = this;
+            while (root.base != null) root = root.base;
+            Map<Object, List<Object>> merged = new HashMap<>();
+            merge(merged, root);
+            if (merged.size() < root.edges.size()) return new Dependents(new Dependents(root, merged), new HashMap<>());
+            Map<Object, List<Object>> flattened = new HashMap<>(root.edges);
+            flattened.putAll(merged);
+            flattened.values().removeIf(List::isEmpty);
+            return new Dependents(new Dependents(null, flattened), new HashMap<>());
+        }
+
+        private void merge(Map<Object, List<Object>> merged, Dependents root) {
+            if (this == root) return;
+            base.merge(merged, root);
+            merged.putAll(edges);
+        }
+
+        // moves the edges of node in this layer; a node left without dependents is shadowed by an empty list
+        void replaceEdges(Object node, List<Ref<?>> before, List<Ref<?>> after) {
+            for (Ref<?> dependency : before) {
+                Object key = nodeOf(dependency);
+                List<Object> remaining = new ArrayList<>(of(key));
+                remaining.removeIf(node::equals);
+                edges.put(key, remaining);
+            }
+            for (Ref<?> dependency : after) {
+                Object key = nodeOf(dependency);
+                List<Object> added = new ArrayList<>(of(key));
+                added.add(node);
+                edges.put(key, added);
+            }
+        }
+    }
+}
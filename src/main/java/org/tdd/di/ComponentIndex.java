@@ -0,0 +1,55 @@
+package org.tdd.di;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+final class ComponentIndex {
+    private final Class<?>[] components;
+    private final Class<?>[] keys;
+    private final int[] ids;
+    private final int mask;
+
+    ComponentIndex(Collection<Class<?>> components) {
+        this.components = components.toArray(Class<?>[]::new);
+        int capacity = Integer.highestOneBit(Math.max(2, this.components.length * 2 - 1)) << 1;
+        keys = new Class<?>[capacity];
+        ids = new int[capacity];
+        mask = capacity - 1;
+        for (int id = 0; id < this.components.length; id++) {
+            int slot = slot(this.components[id]);
+            while (keys[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = this.components[id];
+            ids[slot] = id;
+        }
+    }
+
+    // keeps the ids already handed out and appends added after them
+    ComponentIndex with(Collection<Class<?>> added) {
+        List<Class<?>> components = new ArrayList<>(Arrays.asList(this.components));
+        components.addAll(added);
+        return new ComponentIndex(components);
+    }
+
+    int idOf(Class<?> component) {
+        for (int slot = slot(component); ; slot = (slot + 1) & mask) {
+            Class<?> key = keys[slot];
+            if (key == component) return ids[slot];
+            if (key == null) return -1;
+        }
+    }
+
+    Class<?> componentOf(int id) {
+        return components[id];
+    }
+
+    int size() {
+        return components.length;
+    }
+
+    private int slot(Class<?> component) {
+        int hash = System.identityHashCode(component) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -10,4 +10,7 @@ public interface ComponentProvider<T> {
     default List<Ref<?>> getDependencies() {
         return List.of();
     }
+
+    default void link(Container container) {
+    }
 }
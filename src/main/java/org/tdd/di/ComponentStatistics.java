@@ -0,0 +1,49 @@
+package org.tdd.di;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class ComponentStatistics {
+    private final Class<?> component;
+    private final LongAdder resolutions = new LongAdder();
+    private final LongAdder constructions = new LongAdder();
+    private final LongAdder inclusiveNanos = new LongAdder();
+    private final LongAdder exclusiveNanos = new LongAdder();
+
+    ComponentStatistics(Class<?> component) {
+        this.component = component;
+    }
+
+    public Class<?> getComponent() {
+        return component;
+    }
+
+    public long getResolutions() {
+        return resolutions.sum();
+    }
+
+    public long getConstructions() {
+        return constructions.sum();
+    }
+
+    // construction times are only taken when the container is profiled, and are zero otherwise
+    public long getInclusiveNanos() {
+        return inclusiveNanos.sum();
+    }
+
+    public long getExclusiveNanos() {
+        return exclusiveNanos.sum();
+    }
+
+    void resolved() {
+        resolutions.increment();
+    }
+
+    void constructed() {
+        constructions.increment();
+    }
+
+    void timed(long inclusive, long exclusive) {
+        inclusiveNanos.add(inclusive);
+        exclusiveNanos.add(exclusive);
+    }
+}
@@ -0,0 +1,9 @@
+package org.tdd.di;
+
+import java.util.Map;
+
+public interface ComponentStatisticsMXBean {
+    Map<String, Long> getResolutions();
+
+    Map<String, Long> getConstructions();
+}
@@ -0,0 +1,108 @@
+package org.tdd.di;
+
+import java.util.*;
+
+// construction times of a profiled container over the edges of getDependencies. The critical path is the chain of
+// dependencies with the most exclusive time, which bounds a start no matter how much of it runs in parallel
+public final class ConstructionProfile {
+    private final List<Node> nodes;
+    private final List<Class<?>> criticalPath;
+    private final long criticalPathNanos;
+
+    private ConstructionProfile(List<Node> nodes, List<Class<?>> criticalPath, long criticalPathNanos) {
+        this.nodes = nodes;
+        this.criticalPath = criticalPath;
+        this.criticalPathNanos = criticalPathNanos;
+    }
+
+    static ConstructionProfile of(ComponentStatistics[] statistics, int[][] dependencies) {
+        long[] longest = new long[statistics.length];
+        int[] next = new int[statistics.length];
+        int last = -1;
+        for (int id : Container.topologicalOrder(dependencies)) {
+            next[id] = -1;
+            for (int dependency : dependencies[id])
+                if (next[id] < 0 || longest[dependency] > longest[next[id]]) next[id] = dependency;
+            longest[id] = statistics[id].getExclusiveNanos() + (next[id] < 0 ? 0 : longest[next[id]]);
+            if (last < 0 || longest[id] > longest[last]) last = id;
+        }
+        List<Class<?>> criticalPath = new ArrayList<>();
+        for (int id = last; id >= 0; id = next[id])
+            criticalPath.add(statistics[id].getComponent());
+        List<Node> nodes = new ArrayList<>();
+        for (int id = 0; id < statistics.length; id++)
+            nodes.add(new Node(statistics[id].getComponent(), statistics[id].getConstructions(),
+                    statistics[id].getInclusiveNanos(), statistics[id].getExclusiveNanos(),
+                    Arrays.stream(dependencies[id]).<Class<?>>mapToObj(dependency -> statistics[dependency].getComponent()).toList()));
+        return new ConstructionProfile(List.copyOf(nodes), List.copyOf(criticalPath), last < 0 ? 0 : longest[last]);
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    // from the component the chain starts at down to the dependency it ends on
+    public List<Class<?>> getCriticalPath() {
+        return criticalPath;
+    }
+
+    public long getCriticalPathNanos() {
+        return criticalPathNanos;
+    }
+
+    public String toDot() {
+        Set<Class<?>> critical = new HashSet<>(criticalPath);
+        StringBuilder dot = new StringBuilder("digraph container {\n");
+        for (Node node : nodes) {
+            dot.append("  ").append(quote(node.component().getName())).append(" [label=")
+                    .append("\"").append(escape(node.component().getSimpleName())).append("\\ninclusive ")
+                    .append(micros(node.inclusiveNanos())).append(" us\\nexclusive ").append(micros(node.exclusiveNanos()))
+                    .append(" us\"")
+                    .append(critical.contains(node.component()) ? ", color=red" : "").append("];\n");
+            for (Class<?> dependency : node.dependencies())
+                dot.append("  ").append(quote(node.component().getName())).append(" -> ").append(quote(dependency.getName()))
+                        .append(isCritical(node.component(), dependency) ? " [color=red]" : "").append(";\n");
+        }
+        return dot.append("}\n").toString();
+    }
+
+    public String toJson() {
+        StringJoiner components = new StringJoiner(",", "[", "]");
+        for (Node node : nodes)
+            components.add("{\"component\":" + quote(node.component().getName())
+                    + ",\"constructions\":" + node.constructions()
+                    + ",\"inclusiveNanos\":" + node.inclusiveNanos()
+                    + ",\"exclusiveNanos\":" + node.exclusiveNanos()
+                    + ",\"dependencies\":" + names(node.dependencies()) + "}");
+        return "{\"criticalPath\":{\"nanos\":" + criticalPathNanos + ",\"components\":" + names(criticalPath) + "}"
+                + ",\"components\":" + components + "}";
+    }
+
+    private boolean isCritical(Class<?> component, Class<?> dependency) {
+        int index = criticalPath.indexOf(component);
+        return index >= 0 && index + 1 < criticalPath.size() && criticalPath.get(index + 1) == dependency;
+    }
+
+    private static String names(List<Class<?>> components) {
+        StringJoiner names = new StringJoiner(",", "[", "]");
+        components.forEach(component -> names.add(quote(component.getName())));
+        return names.toString();
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1000.0);
+    }
+
+    private static String quote(String value) {
+        return "\"" + escape(value) + "\"";
+    }
+
+    // the \n line breaks of a DOT label are appended after escaping, so they stay escapes rather than text
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    public record Node(Class<?> component, long constructions, long inclusiveNanos, long exclusiveNanos,
+                       List<Class<?>> dependencies) {
+    }
+}
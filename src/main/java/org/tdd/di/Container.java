@@ -2,26 +2,343 @@ package org.tdd.di;
 
 import jakarta.inject.Provider;
 import org.tdd.di.ContainerBuilder.Ref;
+import org.tdd.di.exception.EagerStartException;
 import org.tdd.di.exception.UnsupportedTypeException;
 
-import java.util.Map;
-import java.util.Optional;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 public class Container {
-    private final Map<Class<?>, ComponentProvider<?>> componentProviders;
+    private final Container parent;
+    private final ComponentIndex index;
+    private final ComponentProvider<?>[] componentProviders;
+    private final Provider<?>[] providers;
+    private final BitSet singletons;
+    private final ComponentStatistics[] statistics;
+    private final Multibindings multibindings;
+
+    private final ComponentGraph graph;
+    private final LongAdder lazyInjected = new LongAdder();
+    private final LongAdder lazyMaterialized = new LongAdder();
+    private volatile WarmupReport warmupReport;
+    // containers rebuilt from one another share it, so a provider linked in one stays linked in the others
+    final Object lineage;
 
     public Container(Map<Class<?>, ComponentProvider<?>> componentProviders) {
-        this.componentProviders = componentProviders;
+        this(null, graphOf(componentProviders), new Object());
+    }
+
+    // a child container only holds its own bindings and falls back to the parent for everything else
+    Container(Container parent, ComponentGraph graph, Object lineage) {
+        this.parent = parent;
+        this.graph = graph;
+        this.lineage = lineage;
+        this.index = graph.index;
+        this.componentProviders = graph.providers;
+        this.singletons = graph.singletons;
+        this.statistics = graph.statistics;
+        this.multibindings = graph.multibindings;
+        this.providers = new Provider<?>[componentProviders.length];
+        for (int id = 0; id < componentProviders.length; id++) {
+            ComponentProvider<?> provider = componentProviders[id];
+            providers[id] = () -> provider.getFrom(this);
+        }
+    }
+
+    private static ComponentGraph graphOf(Map<Class<?>, ComponentProvider<?>> componentProviders) {
+        ComponentProvider<?>[] providers = componentProviders.values().toArray(ComponentProvider<?>[]::new);
+        return new ComponentGraph(new ComponentIndex(componentProviders.keySet()), providers,
+                (Class<? extends Annotation>[]) new Class<?>[providers.length], providers, new BitSet(), null,
+                Multibindings.EMPTY, Map.of(), Map.of(), Map.of(), false, false, null);
+    }
+
+    // bindings made on the returned builder replace or add to these; building it derives a container that keeps
+    // every provider and singleton not depending on them, and only recreates and checks the ones that do
+    public ContainerBuilder rebuild() {
+        return new ContainerBuilder(parent, this);
     }
 
     public <T> Optional<T> get(Ref<T> ref) {
-        Optional<? extends ComponentProvider<?>> providerOptional = Optional.ofNullable(componentProviders.get(ref.getComponent()));
+        if (Multibindings.isMultibinding(ref)) {
+            Multibindings.Multibinding multibinding = multibindingOf(ref);
+            if (multibinding == null) return parent != null ? parent.get(ref) : Optional.empty();
+            return Optional.of((T) multibinding.getFrom(ref, this));
+        }
+        int id = index.idOf(ref.getComponent());
+        if (id < 0 && parent != null) return parent.get(ref);
         if (ref.isContainer()) {
+            if (ref.getContainer() == Pooled.class) return id < 0 ? Optional.empty() : Optional.of((T) poolOf(id));
             if (ref.getContainer() != Provider.class)
                 throw new UnsupportedTypeException(ref.getContainer());
-            return providerOptional.map(provider -> (T) (Provider<?>) () -> provider.getFrom(this));
+            return id < 0 ? Optional.empty() : Optional.of((T) providers[id]);
+        }
+        return id < 0 ? Optional.empty() : Optional.ofNullable((T) componentProviders[id].getFrom(this));
+    }
+
+    // looks the provider up once and then builds count instances of it back to back; a scoped component yields
+    // whatever its scope hands out, so a singleton fills the list with one instance
+    public <T> List<T> getMany(Ref<T> ref, int count) {
+        if (count < 0) throw new IllegalArgumentException("count must not be negative");
+        Provider<T> provider = batchProviderOf(ref);
+        if (provider == null) return List.of();
+        Object[] instances = new Object[count];
+        for (int i = 0; i < count; i++)
+            instances[i] = provider.get();
+        return (List<T>) Collections.unmodifiableList(Arrays.asList(instances));
+    }
+
+    // sized, so a parallel stream splits the instances evenly across the common pool
+    public <T> Stream<T> getStream(Ref<T> ref, long count) {
+        if (count < 0) throw new IllegalArgumentException("count must not be negative");
+        Provider<T> provider = batchProviderOf(ref);
+        if (provider == null) return Stream.empty();
+        return LongStream.range(0, count).mapToObj(i -> provider.get());
+    }
+
+    // the provider is bound to the container holding the component, which may be the parent
+    private <T> Provider<T> batchProviderOf(Ref<T> ref) {
+        if (ref.isContainer()) throw new UnsupportedTypeException(ref.getContainer());
+        int id = index.idOf(ref.getComponent());
+        if (id < 0 && parent != null) return parent.batchProviderOf(ref);
+        return id < 0 ? null : (Provider<T>) providers[id];
+    }
+
+    public <T> CompletableFuture<Optional<T>> getAsync(Ref<T> ref) {
+        return getAsync(ref, ForkJoinPool.commonPool());
+    }
+
+    // dependencies of a component are resolved concurrently on the executor, then the component is
+    // assembled from their values, so nothing below the requested component blocks a thread
+    public <T> CompletableFuture<Optional<T>> getAsync(Ref<T> ref, Executor executor) {
+        if (ref.isContainer()) {
+            try {
+                return CompletableFuture.completedFuture(get(ref));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        int id = index.idOf(ref.getComponent());
+        if (id < 0 && parent != null) return parent.getAsync(ref, executor);
+        if (id < 0) return CompletableFuture.completedFuture(Optional.empty());
+        return resolveAsync(id, executor).thenApply(instance -> Optional.ofNullable((T) instance));
+    }
+
+    private CompletableFuture<Object> resolveAsync(Ref<?> ref, Executor executor) {
+        if (ref.isContainer()) return CompletableFuture.completedFuture(getResolver(ref).get());
+        int id = index.idOf(ref.getComponent());
+        if (id < 0 && parent != null) return parent.resolveAsync(ref, executor);
+        if (id < 0) return CompletableFuture.completedFuture(getResolver(ref).get());
+        return resolveAsync(id, executor);
+    }
+
+    private CompletableFuture<Object> resolveAsync(int id, Executor executor) {
+        ComponentProvider<Object> provider = (ComponentProvider<Object>) componentProviders[id];
+        if (provider instanceof SingletonComponentProvider<Object> singleton)
+            return singleton.getAsync(scoped -> assembleAsync(scoped, executor));
+        return assembleAsync(provider, executor);
+    }
+
+    // providers that cannot be given resolved values, such as other scopes, run as a whole on the executor
+    private CompletableFuture<Object> assembleAsync(ComponentProvider<Object> provider, Executor executor) {
+        if (!(provider instanceof ComponentAssembler<Object> assembler))
+            return CompletableFuture.supplyAsync(() -> provider.getFrom(this), executor);
+        List<Ref<?>> dependencies = provider.getDependencies();
+        CompletableFuture<?>[] resolved = new CompletableFuture<?>[dependencies.size()];
+        for (int i = 0; i < resolved.length; i++)
+            resolved[i] = assembler.isLazy(i) ? CompletableFuture.completedFuture(getResolver(dependencies.get(i)))
+                    : resolveAsync(dependencies.get(i), executor);
+        return CompletableFuture.allOf(resolved).thenApplyAsync(ignored -> {
+            Object[] values = new Object[resolved.length];
+            for (int i = 0; i < values.length; i++)
+                values[i] = resolved[i].join();
+            return assembler.assemble(values, this);
+        }, executor);
+    }
+
+    // empty unless the container was built with instrumentation
+    public Map<Class<?>, ComponentStatistics> getStatistics() {
+        if (statistics == null) return Map.of();
+        Map<Class<?>, ComponentStatistics> result = new LinkedHashMap<>();
+        for (ComponentStatistics component : statistics)
+            result.put(component.getComponent(), component);
+        return result;
+    }
+
+    // empty unless the container was built with profiling; times are summed over every construction so far
+    public ConstructionProfile getProfile() {
+        if (!graph.profiled) return ConstructionProfile.of(new ComponentStatistics[0], new int[0][]);
+        return ConstructionProfile.of(statistics, directDependencies());
+    }
+
+    // counts the @Lazy proxies injected by this container, and how many of them have resolved their dependency
+    public LazyStatistics getLazyStatistics() {
+        return new LazyStatistics(lazyInjected.sum(), lazyMaterialized.sum());
+    }
+
+    void lazyInjected() {
+        lazyInjected.increment();
+    }
+
+    void lazyMaterialized() {
+        lazyMaterialized.increment();
+    }
+
+    public void registerStatistics(ObjectName name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new ContainerStatistics(getStatistics().values()), name);
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void start() {
+        start(ForkJoinPool.commonPool());
+    }
+
+    public void start(Executor executor) {
+        Map<Class<?>, Throwable> failures = new ConcurrentHashMap<>();
+        CompletableFuture<?>[] started = new CompletableFuture<?>[componentProviders.length];
+        int[][] dependencies = directDependencies();
+        for (int id : topologicalOrder(dependencies)) {
+            ComponentProvider<?> provider = componentProviders[id];
+            Class<?> component = index.componentOf(id);
+            CompletableFuture<Void> ready = CompletableFuture.allOf(Arrays.stream(dependencies[id])
+                    .mapToObj(dependency -> started[dependency]).toArray(CompletableFuture[]::new));
+            started[id] = !singletons.get(id) ? ready : ready.thenRunAsync(() -> {
+                try {
+                    provider.getFrom(this);
+                } catch (Throwable e) {
+                    failures.put(component, e);
+                    throw e;
+                }
+            }, executor);
+        }
+        CompletableFuture.allOf(started).exceptionally(e -> null).join();
+        if (!failures.isEmpty()) throw new EagerStartException(failures);
+    }
+
+    // constructs every singleton and resolves every other component iterations times, dependencies first, on the
+    // calling thread, so class initialization and the compilation of the hot paths happen before the first request.
+    // It goes through get as a request does, which also fills the per-class caches a request looks the Ref up in
+    public WarmupReport warmup(int iterations) {
+        if (iterations <= 0) throw new IllegalArgumentException("iterations must be positive");
+        Map<Class<?>, Throwable> failures = new LinkedHashMap<>();
+        List<WarmupReport.ComponentTiming> components = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int id : topologicalOrder(directDependencies())) {
+            Class<?> component = index.componentOf(id);
+            Ref<?> ref = Ref.of(component);
+            int runs = singletons.get(id) ? 1 : iterations;
+            long first = 0, warm = 0;
+            try {
+                for (int run = 0; run < runs; run++) {
+                    long begin = System.nanoTime();
+                    get(ref);
+                    long elapsed = System.nanoTime() - begin;
+                    if (run == 0) first = elapsed;
+                    else warm += elapsed;
+                }
+            } catch (Throwable e) {
+                failures.put(component, e);
+                continue;
+            }
+            components.add(new WarmupReport.ComponentTiming(component, singletons.get(id), runs, first,
+                    runs == 1 ? first : warm / (runs - 1)));
+        }
+        if (!failures.isEmpty()) throw new EagerStartException(failures);
+        WarmupReport report = new WarmupReport(List.copyOf(components), System.nanoTime() - start);
+        warmupReport = report;
+        return report;
+    }
+
+    // the report of the last warmup, empty if the container was never warmed up
+    public Optional<WarmupReport> getWarmupReport() {
+        return Optional.ofNullable(warmupReport);
+    }
+
+    private int[][] directDependencies() {
+        int[][] dependencies = new int[componentProviders.length][];
+        for (int id = 0; id < componentProviders.length; id++)
+            dependencies[id] = componentProviders[id].getDependencies().stream().filter(ref -> !ref.isContainer())
+                    .mapToInt(ref -> index.idOf(ref.getComponent())).filter(dependency -> dependency >= 0).distinct().toArray();
+        return dependencies;
+    }
+
+    static int[] topologicalOrder(int[][] dependencies) {
+        int[] pending = new int[dependencies.length];
+        List<List<Integer>> dependents = new ArrayList<>();
+        for (int id = 0; id < dependencies.length; id++) {
+            pending[id] = dependencies[id].length;
+            dependents.add(new ArrayList<>());
         }
-        return providerOptional.map(provider -> (T) provider.getFrom(this));
+        for (int id = 0; id < dependencies.length; id++)
+            for (int dependency : dependencies[id])
+                dependents.get(dependency).add(id);
+        int[] order = new int[dependencies.length];
+        int head = 0, tail = 0;
+        for (int id = 0; id < dependencies.length; id++)
+            if (pending[id] == 0) order[tail++] = id;
+        while (head < tail)
+            for (int dependent : dependents.get(order[head++]))
+                if (--pending[dependent] == 0) order[tail++] = dependent;
+        return Arrays.copyOf(order, tail);
+    }
+
+    private Pooled<?> poolOf(int id) {
+        ComponentProvider<?> provider = componentProviders[id];
+        if (provider instanceof InstrumentedComponentProvider<?> instrumented) provider = instrumented.getProvider();
+        if (!(provider instanceof Pooled<?> pool)) throw new UnsupportedTypeException(Pooled.class);
+        return pool;
+    }
+
+    ComponentGraph getGraph() {
+        return graph;
+    }
+
+    ComponentProvider<?> getComponentProvider(Class<?> component) {
+        int id = index.idOf(component);
+        return id < 0 ? null : componentProviders[id];
+    }
+
+    boolean contains(Ref<?> ref) {
+        boolean bound = Multibindings.isMultibinding(ref) ? multibindings.idOf(ref) >= 0 : index.idOf(ref.getComponent()) >= 0;
+        return bound || parent != null && parent.contains(ref);
     }
 
+    private Multibindings.Multibinding multibindingOf(Ref<?> ref) {
+        int id = multibindings.idOf(ref);
+        return id < 0 ? null : multibindings.get(id);
+    }
+
+    Provider<?> getResolver(Ref<?> ref) {
+        if (Multibindings.isMultibinding(ref)) {
+            Multibindings.Multibinding multibinding = multibindingOf(ref);
+            if (multibinding == null) return parent != null ? parent.getResolver(ref) : () -> get(ref).get();
+            return () -> multibinding.getFrom(ref, this);
+        }
+        int id = index.idOf(ref.getComponent());
+        if (id < 0 && parent != null) return parent.getResolver(ref);
+        if (id < 0) return () -> get(ref).get();
+        Provider<?> provider = providers[id];
+        if (ref.getContainer() == Pooled.class) {
+            Pooled<?> pool = poolOf(id);
+            return () -> pool;
+        }
+        if (ref.isContainer()) {
+            if (ref.getContainer() != Provider.class)
+                throw new UnsupportedTypeException(ref.getContainer());
+            return () -> provider;
+        }
+        return provider;
+    }
 }
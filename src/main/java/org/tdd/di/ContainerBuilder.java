@@ -1,52 +1,590 @@
 package org.tdd.di;
 
+import jakarta.inject.Scope;
+import jakarta.inject.Singleton;
 import org.tdd.di.exception.CycleDependencyNotAllowed;
 import org.tdd.di.exception.DependencyNotFoundException;
+import org.tdd.di.exception.IllegalComponentException;
 
+import java.lang.annotation.Annotation;
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Stack;
+import java.lang.reflect.WildcardType;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ContainerBuilder {
+    static final String GENERATED_PROVIDER_SUFFIX = "_ComponentProvider";
+    // a failed lookup throws, which costs more than the analysis it would save, so misses are kept as well
+    private static final ClassValue<Optional<Class<?>>> GENERATED_PROVIDERS = new ClassValue<>() {
+        @Override
+        protected Optional<Class<?>> computeValue(Class<?> implType) {
+            try {
+                return Optional.of(Class.forName(generatedProviderName(implType), true, implType.getClassLoader()));
+            } catch (ClassNotFoundException e) {
+                return Optional.empty();
+            }
+        }
+    };
+
+    // the processor names a provider after the binary name of its component within the package, escaping '_' as
+    // "__" and '$' as "_0", so that p.Foo$Bar and p.Foo_Bar get distinct providers
+    static String generatedProviderName(Class<?> implType) {
+        String packageName = implType.getPackageName();
+        String name = implType.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+        return (packageName.isEmpty() ? "" : packageName + ".") + name.replace("_", "__").replace("$", "_0")
+                + GENERATED_PROVIDER_SUFFIX;
+    }
 
+    private final Container parent;
+    private final Container base;
     private final Map<Class<?>, ComponentProvider<?>> componentProviders = new HashMap<>();
+    // class bindings are analysed at build time, when a persisted plan may already cover them, or on the executor
+    private final Map<Class<?>, Class<?>> implementations = new HashMap<>();
+    private final Map<Class<?>, ComponentProvider<?>> analysed = new HashMap<>();
+    // a binding takes the scope of the class it is bound to, which is looked up along with its analysis
+    private final Map<Class<?>, Class<?>> scopedBy = new HashMap<>();
+    private final Map<Class<?>, Optional<Class<? extends Annotation>>> analysedScopes = new HashMap<>();
+    private final Map<Class<?>, List<Contributed>> collectionContributions = new LinkedHashMap<>();
+    private final Map<Class<?>, Map<String, Contributed>> mapContributions = new LinkedHashMap<>();
+    private final Map<Class<? extends Annotation>, ScopeProvider> scopeProviders = new HashMap<>(Map.of(Singleton.class, ScopeProvider.singleton()));
+    private boolean instrumented;
+    private boolean profiled;
+    private Path planCache;
+    private Executor analysis;
+    private int warmup;
+    private final Map<Class<?>, CompletableFuture<Analysis>> pending = new HashMap<>();
 
-    public <T> ContainerBuilder bind(Class<T> type, T instance) {
-        componentProviders.put(type, (container) -> instance);
-        return this;
+    public ContainerBuilder() {
+        this(null);
+    }
+
+    // bindings made here overlay the parent, which is shared as is rather than copied or validated again
+    public ContainerBuilder(Container parent) {
+        this(parent, null);
+    }
+
+    ContainerBuilder(Container parent, Container base) {
+        this.parent = parent;
+        this.base = base;
+        if (base != null) {
+            scopeProviders.putAll(base.getGraph().scopeProviders);
+            instrumented = base.getGraph().instrumented;
+            profiled = base.getGraph().profiled;
+        }
+    }
+
+    public synchronized <T> ContainerBuilder bind(Class<T> type, T instance) {
+        return bindProvider(type, (container) -> instance);
     }
 
     public <T> ContainerBuilder bind(Class<T> type, Class<? extends T> implType) {
-        componentProviders.put(type, new InjectComponentProvider<>(implType));
+        analyse(implType);
+        return bindImplementation(type, implType);
+    }
+
+    // contributes to the List<T> and Set<T> of type
+    public synchronized <T> ContainerBuilder bindInto(Class<T> type, T instance) {
+        return contribute(type, new Contributed(new Contribution(new Multibindings.Instance(instance), null), null));
+    }
+
+    public <T> ContainerBuilder bindInto(Class<T> type, Class<? extends T> implType) {
+        analyse(implType);
+        return contribute(type, new Contributed(null, implType));
+    }
+
+    // contributes to the Map<String, T> of type
+    public synchronized <T> ContainerBuilder bindInto(Class<T> type, String key, T instance) {
+        return contribute(type, key, new Contributed(new Contribution(new Multibindings.Instance(instance), null), null));
+    }
+
+    public <T> ContainerBuilder bindInto(Class<T> type, String key, Class<? extends T> implType) {
+        analyse(implType);
+        return contribute(type, key, new Contributed(null, implType));
+    }
+
+    private synchronized ContainerBuilder contribute(Class<?> type, Contributed contribution) {
+        collectionContributions.computeIfAbsent(type, it -> new ArrayList<>()).add(contribution);
+        return this;
+    }
+
+    private synchronized ContainerBuilder contribute(Class<?> type, String key, Contributed contribution) {
+        Map<String, Contributed> contributions = mapContributions.computeIfAbsent(type, it -> new LinkedHashMap<>());
+        if (contributions.containsKey(key)) throw new IllegalComponentException();
+        contributions.put(key, contribution);
+        return this;
+    }
+
+    public ContainerBuilder bindIndexed() {
+        return bindIndexed(Thread.currentThread().getContextClassLoader(), "");
+    }
+
+    // binds every component listed in the build-time index under its own class, and under each interface
+    // it declares as long as no other indexed component in the package declares that interface too
+    // the index is read, and its classes loaded, before the builder is held for the bindings themselves
+    public ContainerBuilder bindIndexed(ClassLoader classLoader, String packageName) {
+        record Indexed(Class<?> implType, ComponentProvider<?> provider, List<Class<?>> interfaces) {
+        }
+        List<IndexedComponents.Entry> entries = IndexedComponents.read(classLoader).stream()
+                .filter(entry -> entry.isIn(packageName)).toList();
+        Map<String, Integer> implementors = new HashMap<>();
+        for (IndexedComponents.Entry entry : entries)
+            for (String type : entry.interfaces())
+                implementors.merge(type, 1, Integer::sum);
+        List<Indexed> indexed = new ArrayList<>();
+        for (IndexedComponents.Entry entry : entries) {
+            Class<?> implType = load(entry.component(), classLoader);
+            ComponentProvider<?> provider = entry.provider() == null ? null : instantiate(load(entry.provider(), classLoader));
+            analyse(implType);
+            indexed.add(new Indexed(implType, provider, entry.interfaces().stream()
+                    .filter(type -> implementors.get(type) == 1).<Class<?>>map(type -> load(type, classLoader)).toList()));
+        }
+        synchronized (this) {
+            for (Indexed component : indexed) {
+                if (component.provider() == null) bindImplementation(component.implType(), component.implType());
+                else bind(component.implType(), component.implType(), component.provider());
+                // an interface resolves to whatever its class key holds, so a scoped component has one instance
+                for (Class<?> type : component.interfaces())
+                    bindProvider(type, new Alias<>(Ref.of(component.implType())));
+            }
+        }
+        return this;
+    }
+
+    synchronized ContainerBuilder bindProvider(Class<?> type, ComponentProvider<?> provider) {
+        componentProviders.put(type, provider);
+        implementations.remove(type);
+        scopedBy.remove(type);
+        return this;
+    }
+
+    private synchronized ContainerBuilder bind(Class<?> type, Class<?> implType, ComponentProvider<?> provider) {
+        componentProviders.put(type, provider);
+        implementations.remove(type);
+        scopedBy.put(type, implType);
+        return this;
+    }
+
+    private synchronized ContainerBuilder bindImplementation(Class<?> type, Class<?> implType) {
+        implementations.put(type, implType);
+        componentProviders.remove(type);
+        scopedBy.put(type, implType);
+        return this;
+    }
+
+    // looks the scope of implType up on the caller, or hands it and the rest of the analysis to the executor,
+    // without holding the builder either way
+    private void analyse(Class<?> implType) {
+        CompletableFuture<Analysis> future = new CompletableFuture<>();
+        Executor executor;
+        synchronized (this) {
+            executor = analysis;
+            if (executor == null && analysedScopes.containsKey(implType)) return;
+            if (executor != null && (analysed.containsKey(implType) && analysedScopes.containsKey(implType)
+                    || pending.putIfAbsent(implType, future) != null)) return;
+        }
+        if (executor == null) {
+            Optional<Class<? extends Annotation>> scope = scopeOf(implType);
+            synchronized (this) {
+                analysedScopes.put(implType, scope);
+            }
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(new Analysis(providerOf(implType), scopeOf(implType)));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    public synchronized ContainerBuilder scope(Class<? extends Annotation> scope, ScopeProvider provider) {
+        if (!scope.isAnnotationPresent(Scope.class)) throw new IllegalComponentException();
+        scopeProviders.put(scope, provider);
+        return this;
+    }
+
+    // keeps the analysed injection points in file, and skips analysis and validation on a later build
+    // whose bindings and classes are unchanged
+    public synchronized ContainerBuilder planCache(Path file) {
+        planCache = file;
+        return this;
+    }
+
+    // build() also warms the container up, see Container.warmup; a failure there fails the build
+    public synchronized ContainerBuilder warmup(int iterations) {
+        if (iterations <= 0) throw new IllegalArgumentException("iterations must be positive");
+        warmup = iterations;
+        return this;
+    }
+
+    // analyses classes bound after this on executor as they are bound, rather than one after another in build,
+    // which waits for whatever is still pending. Every method of the builder may be called from any thread
+    public synchronized ContainerBuilder analyseOn(Executor executor) {
+        analysis = executor;
+        return this;
+    }
+
+    // counts resolutions and constructions per component and emits flight recorder events for them
+    public synchronized ContainerBuilder instrument() {
+        instrumented = true;
         return this;
     }
 
-    public Container build() {
-        componentProviders.keySet().forEach(component -> checkDependencies(component, new Stack<>()));
-        return new Container(componentProviders);
+    // instruments the container and also times every construction, for Container.getProfile
+    public synchronized ContainerBuilder profile() {
+        instrumented = true;
+        profiled = true;
+        return this;
+    }
+
+    private static Optional<Class<? extends Annotation>> scopeOf(Class<?> implType) {
+        List<Class<? extends Annotation>> scopes = Arrays.stream(implType.getAnnotations()).map(Annotation::annotationType)
+                .filter(annotation -> annotation.isAnnotationPresent(Scope.class)).toList();
+        if (scopes.size() > 1) throw new IllegalComponentException();
+        return scopes.stream().findFirst();
+    }
+
+    private static ComponentProvider<?> providerOf(Class<?> implType) {
+        Optional<Class<?>> generated = GENERATED_PROVIDERS.get(implType);
+        return generated.isPresent() ? instantiate(generated.get()) : new InjectComponentProvider<>(implType);
+    }
+
+    private static Class<?> load(String name, ClassLoader classLoader) {
+        try {
+            return Class.forName(name, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalComponentException();
+        }
+    }
+
+    private static ComponentProvider<?> instantiate(Class<?> generated) {
+        try {
+            return (ComponentProvider<?>) generated.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalComponentException();
+        }
+    }
+
+    public synchronized Container build() {
+        awaitAnalyses();
+        Map<Class<?>, List<Contribution>> collections = new LinkedHashMap<>();
+        collectionContributions.forEach((type, contributions) -> collections.put(type,
+                contributions.stream().map(this::contribution).collect(Collectors.toCollection(ArrayList::new))));
+        Map<Class<?>, Map<String, Contribution>> maps = new LinkedHashMap<>();
+        mapContributions.forEach((type, contributions) -> {
+            Map<String, Contribution> resolved = new LinkedHashMap<>();
+            contributions.forEach((key, contribution) -> resolved.put(key, contribution(contribution)));
+            maps.put(type, resolved);
+        });
+        Container container = base != null ? derive(collections, maps) : create(collections, maps);
+        if (warmup > 0) container.warmup(warmup);
+        return container;
+    }
+
+    private Container create(Map<Class<?>, List<Contribution>> collectionContributions,
+                             Map<Class<?>, Map<String, Contribution>> mapContributions) {
+        byte[] fingerprint = planCache == null ? null : PlanCache.fingerprint(componentProviders, implementations);
+        Optional<Map<Class<?>, ComponentProvider<?>>> cached = fingerprint == null ? Optional.empty()
+                : PlanCache.load(planCache, fingerprint, new HashSet<>(implementations.values()));
+        cached.ifPresent(analysed::putAll);
+        Map<Class<?>, ComponentProvider<?>> bindings = new HashMap<>(componentProviders);
+        implementations.forEach((type, implType) -> bindings.put(type, analysed.computeIfAbsent(implType, ContainerBuilder::providerOf)));
+        ComponentIndex index = new ComponentIndex(bindings.keySet());
+        ComponentProvider<?>[] unscoped = new ComponentProvider<?>[index.size()];
+        Class<? extends Annotation>[] scopes = (Class<? extends Annotation>[]) new Class<?>[index.size()];
+        for (int id = 0; id < unscoped.length; id++) {
+            Class<?> component = index.componentOf(id);
+            unscoped[id] = bindings.get(component);
+            scopes[id] = scopeOfBinding(component);
+        }
+        // a child is validated against whatever its parent holds now, and contributions are bound directly,
+        // neither of which the fingerprint covers
+        Multibindings multibindings = multibindings(collectionContributions, mapContributions, key -> true, null);
+        if (cached.isEmpty() || parent != null || multibindings != Multibindings.EMPTY)
+            checkDependencies(index, unscoped, multibindings, parent, null);
+        if (fingerprint != null && cached.isEmpty()) {
+            Map<Class<?>, ComponentProvider<?>> plans = new HashMap<>();
+            implementations.values().forEach(implType -> plans.put(implType, analysed.get(implType)));
+            PlanCache.save(planCache, fingerprint, plans);
+        }
+        ComponentProvider<?>[] providers = new ComponentProvider<?>[unscoped.length];
+        BitSet singletons = new BitSet(providers.length);
+        ComponentStatistics[] statistics = instrumented ? new ComponentStatistics[providers.length] : null;
+        for (int id = 0; id < providers.length; id++)
+            wrap(index, unscoped, scopes, providers, singletons, statistics, id);
+        Container container = new Container(parent, new ComponentGraph(index, unscoped, scopes, providers, singletons,
+                statistics, multibindings, collectionContributions, mapContributions,
+                Map.copyOf(scopeProviders), instrumented, profiled, null), new Object());
+        for (ComponentProvider<?> provider : providers)
+            provider.link(container);
+        for (int id = 0; id < multibindings.size(); id++)
+            multibindings.get(id).link(container);
+        return container;
+    }
+
+    // a failed analysis only fails the build while its class is still bound
+    private void awaitAnalyses() {
+        pending.forEach((implType, analysis) -> {
+            try {
+                Analysis result = analysis.join();
+                analysed.put(implType, result.provider());
+                analysedScopes.put(implType, result.scope());
+            } catch (CompletionException e) {
+                if (!isBound(implType)) return;
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                if (e.getCause() instanceof Error cause) throw cause;
+                throw e;
+            }
+        });
+        pending.clear();
+    }
+
+    private boolean isBound(Class<?> implType) {
+        return scopedBy.containsValue(implType)
+                || collectionContributions.values().stream().flatMap(List::stream).anyMatch(it -> it.implType() == implType)
+                || mapContributions.values().stream().flatMap(it -> it.values().stream()).anyMatch(it -> it.implType() == implType);
+    }
+
+    private Class<? extends Annotation> scopeOfBinding(Class<?> type) {
+        Class<?> implType = scopedBy.get(type);
+        return implType == null ? null : analysedScope(implType);
+    }
+
+    private Class<? extends Annotation> analysedScope(Class<?> implType) {
+        return analysedScopes.computeIfAbsent(implType, ContainerBuilder::scopeOf).orElse(null);
+    }
+
+    private Contribution contribution(Contributed contributed) {
+        if (contributed.instance() != null) return contributed.instance();
+        return new Contribution(analysed.computeIfAbsent(contributed.implType(), ContainerBuilder::providerOf),
+                analysedScope(contributed.implType()));
+    }
+
+    // the bindings made on this builder are the change: they, and every component or multibinding reached from them
+    // through the dependents of the base, get providers of their own and are checked; everything else is shared
+    private Container derive(Map<Class<?>, List<Contribution>> collectionContributions,
+                             Map<Class<?>, Map<String, Contribution>> mapContributions) {
+        ComponentGraph graph = base.getGraph();
+        Map<Class<?>, ComponentProvider<?>> changed = new LinkedHashMap<>(componentProviders);
+        implementations.forEach((type, implType) -> changed.put(type, analysed.computeIfAbsent(implType, ContainerBuilder::providerOf)));
+        List<Class<?>> added = changed.keySet().stream().filter(type -> graph.index.idOf(type) < 0).toList();
+        ComponentIndex index = added.isEmpty() ? graph.index : graph.index.with(added);
+        ComponentProvider<?>[] unscoped = Arrays.copyOf(graph.unscoped, index.size());
+        Class<? extends Annotation>[] scopes = Arrays.copyOf(graph.scopes, index.size());
+
+        ComponentGraph.Dependents dependents = graph.dependents().overlay();
+        Set<Object> nodes = new LinkedHashSet<>();
+        changed.forEach((type, provider) -> {
+            int id = index.idOf(type);
+            dependents.replaceEdges(type,
+                    unscoped[id] == null ? List.of() : unscoped[id].getDependencies(), provider.getDependencies());
+            unscoped[id] = provider;
+            scopes[id] = scopeOfBinding(type);
+            nodes.add(type);
+        });
+        Map<Class<?>, List<Contribution>> collections = copyOf(graph.collectionContributions);
+        collectionContributions.forEach((type, contributions) -> {
+            List<Contribution> merged = collections.computeIfAbsent(type, it -> new ArrayList<>());
+            List<Ref<?>> before = ComponentGraph.dependenciesOf(merged);
+            merged.addAll(contributions);
+            dependents.replaceEdges(new Multibindings.Key(type, false), before, ComponentGraph.dependenciesOf(merged));
+            nodes.add(new Multibindings.Key(type, false));
+        });
+        Map<Class<?>, Map<String, Contribution>> maps = copyOf(graph.mapContributions);
+        mapContributions.forEach((type, contributions) -> {
+            Map<String, Contribution> merged = maps.computeIfAbsent(type, it -> new LinkedHashMap<>());
+            List<Ref<?>> before = ComponentGraph.dependenciesOf(merged.values());
+            contributions.forEach((key, contribution) -> {
+                if (merged.putIfAbsent(key, contribution) != null) throw new IllegalComponentException();
+            });
+            dependents.replaceEdges(new Multibindings.Key(type, true), before, ComponentGraph.dependenciesOf(merged.values()));
+            nodes.add(new Multibindings.Key(type, true));
+        });
+
+        Set<Object> affected = new HashSet<>(nodes);
+        Deque<Object> pending = new ArrayDeque<>(nodes);
+        while (!pending.isEmpty())
+            for (Object dependent : dependents.of(pending.pop()))
+                if (affected.add(dependent)) pending.push(dependent);
+
+        Multibindings multibindings = multibindings(collections, maps, affected::contains, graph.multibindings);
+        BitSet checked = new BitSet();
+        for (Object node : affected) {
+            if (node instanceof Multibindings.Key key) {
+                checked.set(index.size() + multibindings.idOf(key));
+                continue;
+            }
+            int id = index.idOf((Class<?>) node);
+            if (!changed.containsKey(node)) unscoped[id] = copyOf(unscoped[id]);
+            checked.set(id);
+        }
+        checkDependencies(index, unscoped, multibindings, parent, checked);
+
+        ComponentProvider<?>[] providers = Arrays.copyOf(graph.providers, index.size());
+        BitSet singletons = (BitSet) graph.singletons.clone();
+        ComponentStatistics[] statistics = graph.statistics == null ? null : Arrays.copyOf(graph.statistics, index.size());
+        for (int id = checked.nextSetBit(0); id >= 0 && id < index.size(); id = checked.nextSetBit(id + 1))
+            wrap(index, unscoped, scopes, providers, singletons, statistics, id);
+        Container container = new Container(parent, new ComponentGraph(index, unscoped, scopes, providers, singletons,
+                statistics, multibindings, collections, maps, Map.copyOf(scopeProviders), instrumented, profiled, dependents), base.lineage);
+        for (int id = checked.nextSetBit(0); id >= 0; id = checked.nextSetBit(id + 1))
+            (id < index.size() ? providers[id] : multibindings.get(id - index.size())).link(container);
+        return container;
+    }
+
+    private void wrap(ComponentIndex index, ComponentProvider<?>[] unscoped, Class<? extends Annotation>[] scopes,
+                      ComponentProvider<?>[] providers, BitSet singletons, ComponentStatistics[] statistics, int id) {
+        ComponentProvider<?> provider = unscoped[id];
+        if (statistics != null) {
+            statistics[id] = new ComponentStatistics(index.componentOf(id));
+            provider = new InstrumentedComponentProvider.Construction<>(provider, statistics[id], profiled);
+        }
+        if (scopes[id] != null) provider = scoped(scopes[id], provider);
+        singletons.set(id, scopes[id] == Singleton.class);
+        if (statistics != null) provider = new InstrumentedComponentProvider<>(provider, statistics[id]);
+        providers[id] = provider;
+    }
+
+    // a component that is linked again gets a provider of its own, so the container it came from keeps its links
+    private static ComponentProvider<?> copyOf(ComponentProvider<?> provider) {
+        if (provider instanceof InjectComponentProvider<?> inject) return inject.copy();
+        if (provider instanceof GeneratedComponentProvider<?>) return instantiate(provider.getClass());
+        if (provider instanceof Alias<?> alias) return new Alias<>(alias.target);
+        return provider;
+    }
+
+    private static <K, V> Map<K, V> copyOf(Map<K, V> contributions) {
+        Map<K, V> copy = new LinkedHashMap<>();
+        contributions.forEach((type, values) -> copy.put(type, values instanceof List<?> list
+                ? (V) new ArrayList<>(list) : (V) new LinkedHashMap<>((Map<?, ?>) values)));
+        return copy;
+    }
+
+    // multibindings that are not rebuilt are taken as they are from shared
+    private Multibindings multibindings(Map<Class<?>, List<Contribution>> collectionContributions,
+                                        Map<Class<?>, Map<String, Contribution>> mapContributions,
+                                        Predicate<Multibindings.Key> rebuilt, Multibindings shared) {
+        if (collectionContributions.isEmpty() && mapContributions.isEmpty()) return Multibindings.EMPTY;
+        Map<Class<?>, Multibindings.Multibinding> collections = new LinkedHashMap<>();
+        collectionContributions.forEach((type, contributions) -> {
+            Multibindings.Key key = new Multibindings.Key(type, false);
+            collections.put(type, !rebuilt.test(key) ? shared.get(shared.idOf(key))
+                    : new Multibindings.Multibinding(type, scoped(contributions, shared != null), null));
+        });
+        Map<Class<?>, Multibindings.Multibinding> maps = new LinkedHashMap<>();
+        mapContributions.forEach((type, contributions) -> {
+            Multibindings.Key key = new Multibindings.Key(type, true);
+            maps.put(type, !rebuilt.test(key) ? shared.get(shared.idOf(key)) : new Multibindings.Multibinding(type,
+                    scoped(contributions.values(), shared != null), contributions.keySet().toArray(String[]::new)));
+        });
+        return new Multibindings(collections, maps);
+    }
+
+    private ComponentProvider<?>[] scoped(Collection<Contribution> contributions, boolean copied) {
+        return contributions.stream().map(contribution -> {
+            ComponentProvider<?> provider = copied ? copyOf(contribution.provider()) : contribution.provider();
+            return contribution.scope() == null ? provider : scoped(contribution.scope(), provider);
+        }).toArray(ComponentProvider<?>[]::new);
+    }
+
+    // resolves the provider of its target once linked, as a generated provider does its dependencies
+    static final class Alias<T> implements ComponentAssembler<T> {
+        private final Ref<T> target;
+        private volatile Linked<T> linked = new Linked<>(new Object(), null);
+
+        Alias(Ref<T> target) {
+            this.target = target;
+        }
+
+        @Override
+        public T getFrom(Container container) {
+            Linked<T> current = linked;
+            return current.lineage() == container.lineage && current.provider() != null
+                    ? current.provider().getFrom(container) : container.get(target).get();
+        }
+
+        @Override
+        public void link(Container container) {
+            linked = new Linked<>(container.lineage, (ComponentProvider<T>) container.getComponentProvider(target.getComponent()));
+        }
+
+        @Override
+        public T assemble(Object[] dependencies) {
+            return (T) dependencies[0];
+        }
+
+        @Override
+        public List<Ref<?>> getDependencies() {
+            return List.of(target);
+        }
+
+        private record Linked<T>(Object lineage, ComponentProvider<T> provider) {
+        }
     }
 
-    static class Ref<T> {
+    record Contribution(ComponentProvider<?> provider, Class<? extends Annotation> scope) {
+    }
+
+    // an instance is contributed as is, a class once it is analysed
+    private record Contributed(Contribution instance, Class<?> implType) {
+    }
+
+    private record Analysis(ComponentProvider<?> provider, Optional<Class<? extends Annotation>> scope) {
+    }
+
+    private ComponentProvider<?> scoped(Class<? extends Annotation> scope, ComponentProvider<?> provider) {
+        ScopeProvider scopeProvider = scopeProviders.get(scope);
+        if (scopeProvider == null) throw new IllegalComponentException();
+        return scopeProvider.create(provider);
+    }
+
+    public static class Ref<T> {
+        private static final ClassValue<Ref<?>> REFS = new ClassValue<>() {
+            @Override
+            protected Ref<?> computeValue(Class<?> type) {
+                return new Ref<>(type);
+            }
+        };
+        // parameterized refs are interned under a class of their own type, see internedUnder, so they pin no class
+        // loader that class does not
+        private static final ClassValue<Map<Type, Ref<?>>> PARAMETERIZED_REFS = new ClassValue<>() {
+            @Override
+            protected Map<Type, Ref<?>> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+
+        private Type type;
         private Type container;
         private Class<T> component;
+        private int hash;
 
         public static <T> Ref<T> of(Type type) {
-            return new Ref<>(type);
+            if (type instanceof Class<?> componentType) return (Ref<T>) REFS.get(componentType);
+            Class<?> owner = internedUnder(type);
+            return owner == null ? new Ref<>(type) : (Ref<T>) PARAMETERIZED_REFS.get(owner).computeIfAbsent(type, Ref::new);
         }
 
         public static <T> Ref<T> of(Class<T> componentType) {
-            return new Ref<>(componentType);
-        }
-
-        private Ref(Class<T> componentType) {
-            init(componentType);
+            return (Ref<T>) REFS.get(componentType);
         }
 
-        private Ref(Type containerType) {
-            init(containerType);
+        private Ref(Type type) {
+            init(type);
         }
 
         protected Ref() {
@@ -55,14 +593,64 @@ public class ContainerBuilder {
         }
 
         private void init(Type type) {
+            this.type = type;
+            this.hash = type.hashCode();
             if (type instanceof ParameterizedType parameterizedType) {
+                Type[] arguments = parameterizedType.getActualTypeArguments();
                 this.container = parameterizedType.getRawType();
-                this.component = (Class<T>) parameterizedType.getActualTypeArguments()[0];
+                this.component = (Class<T>) raw(arguments[arguments.length - 1]);
             } else {
                 this.component = (Class<T>) type;
             }
         }
 
+        private static Type raw(Type type) {
+            return type instanceof ParameterizedType parameterizedType ? parameterizedType.getRawType() : type;
+        }
+
+        // a class of the type whose loader is, or delegates to, the loader of every other class in it, so interning
+        // under it pins nothing that class does not. It is null, and the ref not interned, when the type has a type
+        // variable or classes of unrelated loaders
+        static Class<?> internedUnder(Type type) {
+            List<Class<?>> classes = new ArrayList<>();
+            if (!classesOf(type, classes)) return null;
+            Class<?> owner = classes.get(0);
+            for (Class<?> current : classes) {
+                if (delegatesTo(owner.getClassLoader(), current.getClassLoader())) continue;
+                if (!delegatesTo(current.getClassLoader(), owner.getClassLoader())) return null;
+                owner = current;
+            }
+            return owner;
+        }
+
+        private static boolean delegatesTo(ClassLoader loader, ClassLoader ancestor) {
+            if (ancestor == null) return true;
+            for (ClassLoader current = loader; current != null; current = current.getParent())
+                if (current == ancestor) return true;
+            return false;
+        }
+
+        private static boolean classesOf(Type type, List<Class<?>> classes) {
+            if (type instanceof Class<?> componentType) {
+                classes.add(componentType);
+                return true;
+            }
+            if (type instanceof ParameterizedType parameterizedType)
+                return classesOf(parameterizedType.getRawType(), classes)
+                        && (parameterizedType.getOwnerType() == null || classesOf(parameterizedType.getOwnerType(), classes))
+                        && Arrays.stream(parameterizedType.getActualTypeArguments()).allMatch(argument -> classesOf(argument, classes));
+            if (type instanceof WildcardType wildcardType)
+                return Stream.concat(Arrays.stream(wildcardType.getUpperBounds()), Arrays.stream(wildcardType.getLowerBounds()))
+                        .allMatch(bound -> classesOf(bound, classes));
+            if (type instanceof GenericArrayType arrayType)
+                return classesOf(arrayType.getGenericComponentType(), classes);
+            return false;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
         public Type getContainer() {
             return container;
         }
@@ -78,38 +666,78 @@ public class ContainerBuilder {
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            Ref<?> ref = (Ref<?>) o;
-            return Objects.equals(container, ref.container) && component.equals(ref.component);
+            return o instanceof Ref<?> ref && hash == ref.hash && type.equals(ref.type);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(container, component);
+            return hash;
         }
     }
 
-    private void checkDependencies(Class<?> component, Stack<Class<?>> stack) {
-        for (Ref<?> dependency : componentProviders.get(component).getDependencies()) {
-            checkExist(component, dependency.getComponent());
-            if (!dependency.isContainer()) {
-                checkCycleDependencies(stack, dependency.getComponent());
+    // iterative depth-first search over dense ids: state is 1 while a component is on the path and 2 once done.
+    // Multibindings take the ids after the components, so cycles through their contributions are found too.
+    // A rebuild only walks from the ids it affects, and starts the shared ones as done
+    private static void checkDependencies(ComponentIndex index, ComponentProvider<?>[] providers, Multibindings multibindings,
+                                          Container parent, BitSet checked) {
+        int size = providers.length + multibindings.size();
+        // on a rebuild only the checked ids are walked, and every other one counts as done; the state is kept in
+        // bit sets and the path grows with its depth, so nothing is sized by the whole graph
+        BitSet visiting = new BitSet();
+        BitSet done = new BitSet();
+        int[] path = new int[16];
+        int[] cursor = new int[16];
+        for (int root = checked == null ? 0 : checked.nextSetBit(0); root >= 0 && root < size;
+             root = checked == null ? root + 1 : checked.nextSetBit(root + 1)) {
+            if (done.get(root)) continue;
+            int depth = 0;
+            path[0] = root;
+            cursor[0] = 0;
+            visiting.set(root);
+            while (depth >= 0) {
+                int current = path[depth];
+                List<Ref<?>> dependencies = (current < providers.length ? providers[current]
+                        : multibindings.get(current - providers.length)).getDependencies();
+                if (cursor[depth] == dependencies.size()) {
+                    visiting.clear(current);
+                    done.set(current);
+                    depth--;
+                    continue;
+                }
+                Ref<?> dependency = dependencies.get(cursor[depth]++);
+                boolean multibinding = Multibindings.isMultibinding(dependency);
+                int next = multibinding ? idOf(multibindings.idOf(dependency), providers.length) : index.idOf(dependency.getComponent());
+                if (next < 0 && parent != null && parent.contains(dependency)) continue;
+                if (next < 0)
+                    throw new DependencyNotFoundException(componentOf(index, multibindings, current), dependency.getComponent());
+                if (dependency.isContainer() && !multibinding || done.get(next) || checked != null && !checked.get(next)) continue;
+                if (visiting.get(next))
+                    throw new CycleDependencyNotAllowed(cycle(index, multibindings, path, depth, next));
+                visiting.set(next);
+                if (++depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                    cursor = Arrays.copyOf(cursor, depth * 2);
+                }
+                path[depth] = next;
+                cursor[depth] = 0;
             }
         }
     }
 
-    private void checkExist(Class<?> component, Class<?> dependency) {
-        if (!componentProviders.containsKey(dependency)) {
-            throw new DependencyNotFoundException(component, dependency);
-        }
+    private static int idOf(int multibinding, int offset) {
+        return multibinding < 0 ? -1 : offset + multibinding;
     }
 
-    private void checkCycleDependencies(Stack<Class<?>> stack, Class<?> dependency) {
-        if (stack.contains(dependency)) {
-            throw new CycleDependencyNotAllowed(stack);
-        }
-        stack.push(dependency);
-        checkDependencies(dependency, stack);
-        stack.pop();
+    private static Class<?> componentOf(ComponentIndex index, Multibindings multibindings, int id) {
+        return id < index.size() ? index.componentOf(id) : multibindings.get(id - index.size()).getComponent();
+    }
+
+    private static List<Class<?>> cycle(ComponentIndex index, Multibindings multibindings, int[] path, int depth, int start) {
+        int from = depth;
+        while (path[from] != start) from--;
+        List<Class<?>> cycle = new ArrayList<>();
+        for (int i = from; i <= depth; i++)
+            cycle.add(componentOf(index, multibindings, path[i]));
+        return cycle;
     }
 }
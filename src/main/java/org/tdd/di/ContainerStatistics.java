@@ -0,0 +1,31 @@
+package org.tdd.di;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+class ContainerStatistics implements ComponentStatisticsMXBean {
+    private final Collection<ComponentStatistics> statistics;
+
+    ContainerStatistics(Collection<ComponentStatistics> statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Map<String, Long> getResolutions() {
+        return collect(ComponentStatistics::getResolutions);
+    }
+
+    @Override
+    public Map<String, Long> getConstructions() {
+        return collect(ComponentStatistics::getConstructions);
+    }
+
+    private Map<String, Long> collect(ToLongFunction<ComponentStatistics> counter) {
+        Map<String, Long> counters = new TreeMap<>();
+        for (ComponentStatistics component : statistics)
+            counters.put(component.getComponent().getName(), counter.applyAsLong(component));
+        return counters;
+    }
+}
@@ -0,0 +1,45 @@
+package org.tdd.di;
+
+import jakarta.inject.Provider;
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.lang.reflect.ParameterizedType;
+import java.util.Arrays;
+import java.util.List;
+
+public abstract class GeneratedComponentProvider<T> implements ComponentAssembler<T> {
+    private final Ref<?>[] dependencies;
+    private final List<Ref<?>> dependencyList;
+    private volatile Linked linked = new Linked(new Object(), new Provider<?>[0]);
+
+    protected GeneratedComponentProvider(Ref<?>... dependencies) {
+        this.dependencies = dependencies;
+        this.dependencyList = List.of(dependencies);
+    }
+
+    @Override
+    public List<Ref<?>> getDependencies() {
+        return dependencyList;
+    }
+
+    @Override
+    public void link(Container container) {
+        linked = new Linked(container.lineage, Arrays.stream(dependencies).map(container::getResolver).toArray(Provider<?>[]::new));
+    }
+
+    @Override
+    public abstract T assemble(Object[] dependencies);
+
+    // the component is the type argument a generated provider extends this class with
+    Class<?> getComponent() {
+        return (Class<?>) ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
+    }
+
+    protected final Object dependency(Container container, int index) {
+        Linked current = linked;
+        return current.lineage() == container.lineage ? current.resolvers()[index].get() : container.get(dependencies[index]).get();
+    }
+
+    private record Linked(Object lineage, Provider<?>[] resolvers) {
+    }
+}
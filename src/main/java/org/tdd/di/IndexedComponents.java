@@ -0,0 +1,47 @@
+package org.tdd.di;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+final class IndexedComponents {
+    static final String LOCATION = "META-INF/org.tdd.di/components";
+
+    private IndexedComponents() {
+    }
+
+    static List<Entry> read(ClassLoader classLoader) {
+        List<Entry> entries = new ArrayList<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(LOCATION);
+            while (resources.hasMoreElements())
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(resources.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    reader.lines().filter(line -> !line.isBlank()).map(Entry::parse).forEach(entries::add);
+                }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return entries;
+    }
+
+    record Entry(String component, String provider, List<String> types) {
+        static Entry parse(String line) {
+            String[] columns = line.split("\t");
+            return new Entry(columns[0], columns[1].equals("-") ? null : columns[1], List.of(columns[2].split(",")));
+        }
+
+        List<String> interfaces() {
+            return types.subList(1, types.size());
+        }
+
+        boolean isIn(String packageName) {
+            return packageName.isEmpty() || component.startsWith(packageName + ".");
+        }
+    }
+}
@@ -1,52 +1,196 @@
 package org.tdd.di;
 
 import jakarta.inject.Inject;
+import jakarta.inject.Provider;
 import org.tdd.di.ContainerBuilder.Ref;
 import org.tdd.di.exception.FinalFieldInjectException;
 import org.tdd.di.exception.IllegalComponentException;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-class InjectComponentProvider<T> implements ComponentProvider<T> {
-    private final Constructor<T> constructor;
-    private final List<Field> fields;
-    private final List<Method> methods;
+class InjectComponentProvider<T> implements ComponentAssembler<T> {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodHandle RESOLVE;
+    private static final MethodHandle GET_FROM;
+    private static final MethodHandle GET;
+    private static final MethodHandle LAZY;
 
-    InjectComponentProvider(Class<? extends T> component) {
-        if (Modifier.isAbstract(component.getModifiers())) {
-            throw new IllegalComponentException();
+    static {
+        try {
+            RESOLVE = LOOKUP.findStatic(InjectComponentProvider.class, "resolve",
+                    MethodType.methodType(Object.class, Ref.class, Container.class));
+            GET_FROM = LOOKUP.findVirtual(ComponentProvider.class, "getFrom",
+                    MethodType.methodType(Object.class, Container.class));
+            GET = LOOKUP.findVirtual(Provider.class, "get", MethodType.methodType(Object.class));
+            LAZY = LOOKUP.findStatic(InjectComponentProvider.class, "lazy",
+                    MethodType.methodType(Object.class, Class.class, MethodHandle.class, Container.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
         }
-        constructor = (Constructor<T>) getConstructor(component);
-        fields = getFields(component);
-        methods = getMethods(component);
+    }
+
+    // one analysis per class, shared by every provider of it and dropped with the class. A class that cannot be
+    // analysed keeps what its analysis failed on, and each later bind throws a new exception of its own from it;
+    // any other failure is not kept, and the class is analysed again
+    private static final ClassValue<Object> ANALYSED = new ClassValue<>() {
+        @Override
+        protected Object computeValue(Class<?> component) {
+            try {
+                return new InjectComponentProvider<>(Members.of(component));
+            } catch (IllegalComponentException e) {
+                return (Supplier<RuntimeException>) IllegalComponentException::new;
+            } catch (FinalFieldInjectException e) {
+                String fieldName = e.getFieldName();
+                Class<?> declaring = e.getComponent();
+                return (Supplier<RuntimeException>) () -> new FinalFieldInjectException(fieldName, declaring);
+            }
+        }
+    };
+
+    private final Members members;
+    private final List<Ref<?>> dependencies;
+    private final Class<?>[] lazyTypes;
+    private final Injection instantiation;
+    private final List<Injection> injections;
+    private final Plan plan;
+    private volatile Plan linked;
+
+    InjectComponentProvider(Class<? extends T> component) {
+        this(analysed(component));
+    }
+
+    InjectComponentProvider(Members members) {
+        this.members = members;
+        instantiation = new Injection(unreflect(members.constructor()), 0, toRefs(toTypes(members.constructor())),
+                lazyTypes(members.constructor().getParameters()));
+        List<Injection> fieldInjections = members.fields().stream()
+                .map(field -> new Injection(unreflectSetter(field), 1, toRefs(field.getGenericType()), lazyTypes(field))).toList();
+        List<Injection> methodInjections = members.methods().stream()
+                .map(method -> new Injection(unreflect(method), 1, toRefs(toTypes(method)), lazyTypes(method.getParameters()))).toList();
+        injections = Stream.concat(fieldInjections.stream(), methodInjections.stream()).toList();
+        List<Injection> ordered = Stream.of(fieldInjections.stream(), Stream.of(instantiation), methodInjections.stream())
+                .flatMap(Function.identity()).toList();
+        dependencies = ordered.stream().flatMap(injection -> Arrays.stream(injection.dependencies())).toList();
+        lazyTypes = ordered.stream().flatMap(injection -> Arrays.stream(injection.lazyTypes())).toArray(Class<?>[]::new);
+        plan = compile(null, RESOLVE::bindTo);
+        linked = plan;
+    }
+
+    private InjectComponentProvider(InjectComponentProvider<T> provider) {
+        members = provider.members;
+        dependencies = provider.dependencies;
+        lazyTypes = provider.lazyTypes;
+        instantiation = provider.instantiation;
+        injections = provider.injections;
+        plan = provider.plan;
+        linked = plan;
+    }
+
+    private static <T> InjectComponentProvider<T> analysed(Class<?> component) {
+        Object analysed = ANALYSED.get(component);
+        if (analysed instanceof Supplier<?> failure) throw (RuntimeException) failure.get();
+        return (InjectComponentProvider<T>) analysed;
+    }
+
+    // shares the analysis but not the links
+    InjectComponentProvider<T> copy() {
+        return new InjectComponentProvider<>(this);
     }
 
     @Override
     public T getFrom(Container container) {
+        Plan current = linked;
+        if (current.lineage() != container.lineage) current = plan;
         try {
-            T instance = constructor.newInstance(toDependencies(constructor, container));
-            for (Field field : fields)
-                field.set(instance, toDependency(field, container));
-            for (Method method : methods)
-                method.invoke(instance, toDependencies(method, container));
-            return instance;
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            Object instance = current.instantiate().invokeExact(container);
+            for (MethodHandle injector : current.injectors())
+                injector.invokeExact(instance, container);
+            return (T) instance;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
 
+    @Override
+    public boolean isLazy(int dependency) {
+        return lazyTypes[dependency] != null;
+    }
+
+    // lazy dependencies come as the Provider to resolve them from, and are injected as proxies over it
+    @Override
+    public T assemble(Object[] dependencies, Container container) {
+        for (int i = 0; i < dependencies.length; i++)
+            if (lazyTypes[i] != null) dependencies[i] = LazyProxy.create(lazyTypes[i], ((Provider<?>) dependencies[i])::get, container);
+        return assemble(dependencies);
+    }
+
+    @Override
+    public T assemble(Object[] dependencies) {
+        try {
+            int offset = members.fields().size();
+            Object instance = instantiation.target().invokeWithArguments(
+                    Arrays.copyOfRange(dependencies, offset, offset += instantiation.dependencies().length));
+            for (int i = 0; i < injections.size(); i++) {
+                Injection injection = injections.get(i);
+                Object[] arguments = new Object[injection.dependencies().length + 1];
+                arguments[0] = instance;
+                if (i < members.fields().size()) {
+                    arguments[1] = dependencies[i];
+                } else {
+                    System.arraycopy(dependencies, offset, arguments, 1, injection.dependencies().length);
+                    offset += injection.dependencies().length;
+                }
+                injection.target().invokeWithArguments(arguments);
+            }
+            return (T) instance;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void link(Container container) {
+        linked = compile(container, ref -> {
+            if (ref.getContainer() == Provider.class)
+                return MethodHandles.dropArguments(MethodHandles.constant(Object.class, container.get(ref).get()), 0, Container.class);
+            ComponentProvider<?> provider = ref.isContainer() ? null : container.getComponentProvider(ref.getComponent());
+            if (provider != null) return GET_FROM.bindTo(provider);
+            return MethodHandles.dropArguments(GET.bindTo(container.getResolver(ref)), 0, Container.class);
+        });
+    }
+
     @Override
     public List<Ref<?>> getDependencies() {
-        return Stream.concat(Stream.concat(fields.stream().map(Field::getGenericType),
-                                Arrays.stream(constructor.getParameters()).map(Parameter::getParameterizedType)),
-                        methods.stream().map(Method::getParameters).flatMap(Arrays::stream).map(Parameter::getParameterizedType))
-                .map(Ref::of).collect(Collectors.toList());
+        return dependencies;
+    }
+
+    Members getMembers() {
+        return members;
+    }
+
+    // the injection points of a component, found by scanning it or restored from a persisted plan
+    record Members(Constructor<?> constructor, List<Field> fields, List<Method> methods) {
+        static Members of(Class<?> component) {
+            if (Modifier.isAbstract(component.getModifiers())) {
+                throw new IllegalComponentException();
+            }
+            return new Members(getConstructor(component), getFields(component), getMethods(component));
+        }
     }
 
     private static <T> Constructor<?> getConstructor(Class<T> component) {
@@ -98,13 +242,88 @@ class InjectComponentProvider<T> implements ComponentProvider<T> {
         }
     }
 
-    private static Object[] toDependencies(Executable executable, Container container) {
-        return Arrays.stream(executable.getParameters())
-                .map(Parameter::getParameterizedType)
-                .map(type -> container.get(Ref.of(type)).get()).toArray();
+    private static Type[] toTypes(Executable executable) {
+        return Arrays.stream(executable.getParameters()).map(Parameter::getParameterizedType).toArray(Type[]::new);
+    }
+
+    private static Ref<?>[] toRefs(Type... types) {
+        return Arrays.stream(types).map(Ref::of).toArray(Ref<?>[]::new);
+    }
+
+    // the interface to proxy for each @Lazy dependency, and null for the others
+    private static Class<?>[] lazyTypes(AnnotatedElement... elements) {
+        return Arrays.stream(elements).map(element -> {
+            if (!element.isAnnotationPresent(Lazy.class)) return null;
+            Type type = element instanceof Field field ? field.getGenericType() : ((Parameter) element).getParameterizedType();
+            if (!(type instanceof Class<?> lazyType) || !lazyType.isInterface()) throw new IllegalComponentException();
+            return lazyType;
+        }).toArray(Class<?>[]::new);
     }
 
-    private Object toDependency(Field field, Container container) {
-        return container.get(Ref.of(field.getGenericType())).get();
+    private Plan compile(Container container, Function<Ref<?>, MethodHandle> resolver) {
+        return new Plan(container == null ? null : container.lineage, instantiation.compile(resolver),
+                injections.stream().map(injection -> injection.compile(resolver)).toArray(MethodHandle[]::new));
+    }
+
+    private record Plan(Object lineage, MethodHandle instantiate, MethodHandle[] injectors) {
+    }
+
+    private record Injection(MethodHandle target, int prefix, Ref<?>[] dependencies, Class<?>[] lazyTypes) {
+        // adapts target (prefix..., dependencies...) to (prefix..., Container), resolving each dependency through resolver
+        MethodHandle compile(Function<Ref<?>, MethodHandle> resolver) {
+            MethodHandle handle = target.asType(target.type().generic().changeReturnType(
+                    target.type().returnType() == void.class ? void.class : Object.class));
+            for (int i = dependencies.length - 1; i >= 0; i--) {
+                MethodHandle resolve = resolver.apply(dependencies[i]);
+                if (lazyTypes[i] != null) resolve = MethodHandles.insertArguments(LAZY, 0, lazyTypes[i], resolve);
+                handle = MethodHandles.collectArguments(handle, prefix + i, resolve);
+            }
+            int[] reorder = new int[prefix + dependencies.length];
+            for (int i = 0; i < reorder.length; i++)
+                reorder[i] = Math.min(i, prefix);
+            MethodType type = MethodType.genericMethodType(prefix).appendParameterTypes(Container.class)
+                    .changeReturnType(handle.type().returnType());
+            return MethodHandles.permuteArguments(handle, type, reorder);
+        }
+    }
+
+    private static MethodHandle unreflect(Constructor<?> constructor) {
+        try {
+            return LOOKUP.unreflectConstructor(constructor);
+        } catch (IllegalAccessException e) {
+            throw new IllegalComponentException();
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            return LOOKUP.unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalComponentException();
+        }
+    }
+
+    private static MethodHandle unreflectSetter(Field field) {
+        try {
+            return LOOKUP.unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            throw new IllegalComponentException();
+        }
+    }
+
+    private static Object resolve(Ref<?> ref, Container container) {
+        return container.get(ref).get();
+    }
+
+    private static Object lazy(Class<?> type, MethodHandle resolve, Container container) {
+        return LazyProxy.create(type, () -> {
+            try {
+                return (Object) resolve.invokeExact(container);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }, container);
     }
 }
@@ -0,0 +1,146 @@
+package org.tdd.di;
+
+import jdk.jfr.*;
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.util.List;
+
+// wraps a scoped provider to count resolutions; the unscoped provider inside the scope is wrapped by
+// Construction, so a resolution that never reaches it was served by the scope. Durations are only
+// taken by the flight recorder events, which cost nothing unless a recording enables them, and by a
+// timed Construction when the container is profiled
+class InstrumentedComponentProvider<T> implements ComponentProvider<T> {
+    private static final ThreadLocal<Frame> FRAMES = ThreadLocal.withInitial(Frame::new);
+
+    private final ComponentProvider<T> provider;
+    private final ComponentStatistics statistics;
+
+    InstrumentedComponentProvider(ComponentProvider<T> provider, ComponentStatistics statistics) {
+        this.provider = provider;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public T getFrom(Container container) {
+        Frame frame = FRAMES.get();
+        boolean outerConstructed = frame.constructed;
+        frame.constructed = false;
+        frame.depth++;
+        ResolutionEvent event = new ResolutionEvent();
+        event.begin();
+        try {
+            return provider.getFrom(container);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.component = statistics.getComponent();
+                event.depth = frame.depth - 1;
+                event.hit = !frame.constructed;
+                event.commit();
+            }
+            frame.depth--;
+            frame.constructed = outerConstructed;
+            statistics.resolved();
+        }
+    }
+
+    ComponentProvider<T> getProvider() {
+        return provider;
+    }
+
+    @Override
+    public List<Ref<?>> getDependencies() {
+        return provider.getDependencies();
+    }
+
+    @Override
+    public void link(Container container) {
+        provider.link(container);
+    }
+
+    static class Construction<T> implements ComponentProvider<T> {
+        private final ComponentProvider<T> provider;
+        private final ComponentStatistics statistics;
+        private final boolean timed;
+
+        Construction(ComponentProvider<T> provider, ComponentStatistics statistics, boolean timed) {
+            this.provider = provider;
+            this.statistics = statistics;
+            this.timed = timed;
+        }
+
+        ComponentProvider<T> getProvider() {
+            return provider;
+        }
+
+        // the time of constructions nested in this one is summed in the frame, and is what separates
+        // the inclusive time of this construction from its exclusive time
+        @Override
+        public T getFrom(Container container) {
+            Frame frame = FRAMES.get();
+            frame.constructed = true;
+            long outerNested = frame.nestedNanos;
+            long start = 0;
+            if (timed) {
+                frame.nestedNanos = 0;
+                start = System.nanoTime();
+            }
+            ConstructionEvent event = new ConstructionEvent();
+            event.begin();
+            try {
+                return provider.getFrom(container);
+            } finally {
+                statistics.constructed();
+                if (timed) {
+                    long inclusive = System.nanoTime() - start;
+                    statistics.timed(inclusive, inclusive - frame.nestedNanos);
+                    frame.nestedNanos = outerNested + inclusive;
+                }
+                event.end();
+                if (event.shouldCommit()) {
+                    event.component = statistics.getComponent();
+                    event.depth = frame.depth - 1;
+                    event.commit();
+                }
+            }
+        }
+
+        @Override
+        public List<Ref<?>> getDependencies() {
+            return provider.getDependencies();
+        }
+
+        @Override
+        public void link(Container container) {
+            provider.link(container);
+        }
+    }
+
+    private static class Frame {
+        int depth;
+        boolean constructed;
+        long nestedNanos;
+    }
+
+    @Name("org.tdd.di.ComponentResolution")
+    @Label("Component Resolution")
+    @Category("Dependency Injection")
+    static class ResolutionEvent extends Event {
+        @Label("Component")
+        Class<?> component;
+        @Label("Depth")
+        int depth;
+        @Label("Scope Hit")
+        boolean hit;
+    }
+
+    @Name("org.tdd.di.ComponentConstruction")
+    @Label("Component Construction")
+    @Category("Dependency Injection")
+    static class ConstructionEvent extends Event {
+        @Label("Component")
+        Class<?> component;
+        @Label("Depth")
+        int depth;
+    }
+}
@@ -0,0 +1,49 @@
+package org.tdd.di;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.function.Supplier;
+
+// resolves the dependency behind it at most once, on the first call of any of its methods
+final class LazyProxy implements InvocationHandler {
+    private final Supplier<?> supplier;
+    private final Container container;
+    private volatile Object target;
+
+    private LazyProxy(Supplier<?> supplier, Container container) {
+        this.supplier = supplier;
+        this.container = container;
+    }
+
+    static Object create(Class<?> type, Supplier<?> supplier, Container container) {
+        container.lazyInjected();
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new LazyProxy(supplier, container));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Object instance = target();
+        try {
+            if (!method.canAccess(instance)) method.setAccessible(true);
+            return method.invoke(instance, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object target() {
+        Object current = target;
+        if (current == null) {
+            synchronized (this) {
+                current = target;
+                if (current == null) {
+                    target = current = supplier.get();
+                    container.lazyMaterialized();
+                }
+            }
+        }
+        return current;
+    }
+}
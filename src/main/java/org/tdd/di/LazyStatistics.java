@@ -0,0 +1,7 @@
+package org.tdd.di;
+
+public record LazyStatistics(long injected, long materialized) {
+    public long unmaterialized() {
+        return injected - materialized;
+    }
+}
@@ -0,0 +1,224 @@
+package org.tdd.di;
+
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.lang.reflect.ParameterizedType;
+import java.util.*;
+
+// List<T> and Set<T> share the contributions bound into T, Map<String, T> has its own keyed ones.
+// Each multibinding walks a fixed provider array and wraps the values without copying them
+final class Multibindings {
+    static final Multibindings EMPTY = new Multibindings(Map.of(), Map.of());
+
+    private final ComponentIndex collectionIndex;
+    private final Multibinding[] collections;
+    private final ComponentIndex mapIndex;
+    private final Multibinding[] maps;
+
+    Multibindings(Map<Class<?>, Multibinding> collections, Map<Class<?>, Multibinding> maps) {
+        collectionIndex = new ComponentIndex(collections.keySet());
+        this.collections = collections.values().toArray(Multibinding[]::new);
+        mapIndex = new ComponentIndex(maps.keySet());
+        this.maps = maps.values().toArray(Multibinding[]::new);
+    }
+
+    static boolean isMultibinding(Ref<?> ref) {
+        if (ref.getContainer() == Map.class)
+            return ((ParameterizedType) ref.getType()).getActualTypeArguments()[0] == String.class;
+        return ref.getContainer() == List.class || ref.getContainer() == Set.class;
+    }
+
+    int size() {
+        return collections.length + maps.length;
+    }
+
+    Multibinding get(int id) {
+        return id < collections.length ? collections[id] : maps[id - collections.length];
+    }
+
+    // -1 when nothing is bound into the element type
+    int idOf(Ref<?> ref) {
+        if (ref.getContainer() == Map.class) {
+            int id = mapIndex.idOf(ref.getComponent());
+            return id < 0 ? -1 : collections.length + id;
+        }
+        return collectionIndex.idOf(ref.getComponent());
+    }
+
+    int idOf(Key key) {
+        if (key.keyed()) {
+            int id = mapIndex.idOf(key.component());
+            return id < 0 ? -1 : collections.length + id;
+        }
+        return collectionIndex.idOf(key.component());
+    }
+
+    // names a multibinding independently of its id, which shifts as collections are added
+    record Key(Class<?> component, boolean keyed) {
+        static Key of(Ref<?> ref) {
+            return new Key(ref.getComponent(), ref.getContainer() == Map.class);
+        }
+    }
+
+    // a contribution bound as an instance, which a Set can tell apart from the others once at build
+    record Instance(Object value) implements ComponentProvider<Object> {
+        @Override
+        public Object getFrom(Container container) {
+            return value;
+        }
+    }
+
+    static final class Multibinding implements ComponentProvider<Object[]> {
+        private final Class<?> component;
+        private final ComponentProvider<?>[] contributions;
+        private final String[] keys;
+        private final Map<String, Integer> positions;
+        private final int[] distinct;
+        private final List<Ref<?>> dependencies;
+
+        Multibinding(Class<?> component, ComponentProvider<?>[] contributions, String[] keys) {
+            this.component = component;
+            this.contributions = contributions;
+            this.keys = keys;
+            Map<String, Integer> positions = new HashMap<>();
+            if (keys != null)
+                for (int i = 0; i < keys.length; i++)
+                    positions.put(keys[i], i);
+            this.positions = Map.copyOf(positions);
+            this.distinct = keys != null ? null : distinct(contributions);
+            this.dependencies = Arrays.stream(contributions).flatMap(contribution -> contribution.getDependencies().stream())
+                    .distinct().toList();
+        }
+
+        Class<?> getComponent() {
+            return component;
+        }
+
+        Object getFrom(Ref<?> ref, Container container) {
+            Object[] values = getFrom(container);
+            if (ref.getContainer() == List.class) return Collections.unmodifiableList(Arrays.asList(values));
+            if (ref.getContainer() == Set.class) return new MultibindingSet<>(distinct, values);
+            return new MultibindingMap<>(this, values);
+        }
+
+        // the positions a Set holds, in binding order: an instance equal to one bound before it is left out, while
+        // every other contribution builds a value of its own and is kept
+        private static int[] distinct(ComponentProvider<?>[] contributions) {
+            Set<Object> instances = new HashSet<>();
+            int[] distinct = new int[contributions.length];
+            int size = 0;
+            for (int i = 0; i < contributions.length; i++)
+                if (!(contributions[i] instanceof Instance instance) || instances.add(instance.value())) distinct[size++] = i;
+            return Arrays.copyOf(distinct, size);
+        }
+
+        @Override
+        public Object[] getFrom(Container container) {
+            Object[] values = new Object[contributions.length];
+            for (int i = 0; i < values.length; i++)
+                values[i] = contributions[i].getFrom(container);
+            return values;
+        }
+
+        @Override
+        public List<Ref<?>> getDependencies() {
+            return dependencies;
+        }
+
+        @Override
+        public void link(Container container) {
+            for (ComponentProvider<?> contribution : contributions)
+                contribution.link(container);
+        }
+    }
+
+    private static final class MultibindingSet<E> extends AbstractSet<E> {
+        private final int[] positions;
+        private final Object[] values;
+
+        MultibindingSet(int[] positions, Object[] values) {
+            this.positions = positions;
+            this.values = values;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < positions.length;
+                }
+
+                @Override
+                public E next() {
+                    if (next == positions.length) throw new NoSuchElementException();
+                    return (E) values[positions[next++]];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return positions.length;
+        }
+    }
+
+    // keys and their positions are fixed at build, so a map is only the array of values behind them
+    private static final class MultibindingMap<V> extends AbstractMap<String, V> {
+        private final Multibinding multibinding;
+        private final Object[] values;
+
+        MultibindingMap(Multibinding multibinding, Object[] values) {
+            this.multibinding = multibinding;
+            this.values = values;
+        }
+
+        @Override
+        public V get(Object key) {
+            Integer position = multibinding.positions.get(key);
+            return position == null ? null : (V) values[position];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return multibinding.positions.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, V>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < values.length;
+                        }
+
+                        @Override
+                        public Entry<String, V> next() {
+                            if (next == values.length) throw new NoSuchElementException();
+                            Entry<String, V> entry = new SimpleImmutableEntry<>(multibinding.keys[next], (V) values[next]);
+                            next++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return values.length;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.tdd.di;
+
+import java.io.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+// binary layout: magic, version, fingerprint, then per implementation its name and either the generated
+// provider that wires it or the constructor, fields and methods InjectComponentProvider found on it
+final class PlanCache {
+    private static final int MAGIC = 0x54444449;
+    private static final int VERSION = 1;
+    private static final byte GENERATED = 0;
+    private static final byte INJECTED = 1;
+    private static final Map<String, Class<?>> PRIMITIVES = Map.of("boolean", boolean.class, "byte", byte.class,
+            "short", short.class, "int", int.class, "long", long.class, "char", char.class,
+            "float", float.class, "double", double.class);
+
+    private PlanCache() {
+    }
+
+    // covers the bindings, the dependencies of every provider binding and the bytes of every implementation class
+    // and its superclasses, so that any change to what a build would validate gives a different fingerprint
+    static byte[] fingerprint(Map<Class<?>, ComponentProvider<?>> providers, Map<Class<?>, Class<?>> implementations) {
+        MessageDigest digest = digest();
+        update(digest, Runtime.version().toString());
+        List<Map.Entry<Class<?>, ComponentProvider<?>>> provided = new ArrayList<>(providers.entrySet());
+        provided.sort(Comparator.comparing(binding -> binding.getKey().getName()));
+        for (Map.Entry<Class<?>, ComponentProvider<?>> binding : provided) {
+            update(digest, binding.getKey().getName());
+            for (ContainerBuilder.Ref<?> dependency : binding.getValue().getDependencies())
+                update(digest, dependency.getType().getTypeName());
+            digest.update((byte) 0);
+        }
+        List<Map.Entry<Class<?>, Class<?>>> bindings = new ArrayList<>(implementations.entrySet());
+        bindings.sort(Comparator.comparing(binding -> binding.getKey().getName()));
+        for (Map.Entry<Class<?>, Class<?>> binding : bindings) {
+            update(digest, binding.getKey().getName());
+            for (Class<?> type = binding.getValue(); type != null && type.getClassLoader() != null; type = type.getSuperclass()) {
+                update(digest, type.getName());
+                digest.update(bytesOf(type));
+            }
+        }
+        return digest.digest();
+    }
+
+    // empty when the file is missing, was written for another fingerprint or no longer matches the classes
+    static Optional<Map<Class<?>, ComponentProvider<?>>> load(Path file, byte[] fingerprint, Collection<Class<?>> implementations) {
+        Map<String, Class<?>> byName = new HashMap<>();
+        implementations.forEach(type -> byName.put(type.getName(), type));
+        try (FileChannel channel = FileChannel.open(file)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return Optional.empty();
+            byte[] stored = new byte[buffer.getShort()];
+            buffer.get(stored);
+            if (!Arrays.equals(stored, fingerprint)) return Optional.empty();
+            Map<Class<?>, ComponentProvider<?>> providers = new HashMap<>();
+            for (int count = buffer.getInt(); count > 0; count--) {
+                Class<?> component = byName.get(readString(buffer));
+                if (component == null) return Optional.empty();
+                providers.put(component, readProvider(buffer, component));
+            }
+            return providers.size() == byName.size() ? Optional.of(providers) : Optional.empty();
+        } catch (IOException | RuntimeException | ReflectiveOperationException | LinkageError e) {
+            return Optional.empty();
+        }
+    }
+
+    // the cache only saves work, so a build that cannot write it goes on without one
+    static void save(Path file, byte[] fingerprint, Map<Class<?>, ComponentProvider<?>> providers) {
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeShort(fingerprint.length);
+                output.write(fingerprint);
+                output.writeInt(providers.size());
+                for (Map.Entry<Class<?>, ComponentProvider<?>> entry : providers.entrySet()) {
+                    writeString(output, entry.getKey().getName());
+                    writeProvider(output, entry.getValue());
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UnsupportedOperationException e) {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static void writeProvider(DataOutputStream output, ComponentProvider<?> provider) throws IOException {
+        if (!(provider instanceof InjectComponentProvider<?> injected)) {
+            output.writeByte(GENERATED);
+            writeString(output, provider.getClass().getName());
+            return;
+        }
+        InjectComponentProvider.Members members = injected.getMembers();
+        output.writeByte(INJECTED);
+        writeTypes(output, members.constructor().getParameterTypes());
+        output.writeShort(members.fields().size());
+        for (Field field : members.fields()) {
+            writeString(output, field.getDeclaringClass().getName());
+            writeString(output, field.getName());
+        }
+        output.writeShort(members.methods().size());
+        for (Method method : members.methods()) {
+            writeString(output, method.getDeclaringClass().getName());
+            writeString(output, method.getName());
+            writeTypes(output, method.getParameterTypes());
+        }
+    }
+
+    private static ComponentProvider<?> readProvider(ByteBuffer buffer, Class<?> component) throws ReflectiveOperationException {
+        ClassLoader classLoader = component.getClassLoader();
+        if (buffer.get() == GENERATED)
+            return (ComponentProvider<?>) Class.forName(readString(buffer), true, classLoader).getDeclaredConstructor().newInstance();
+        return new InjectComponentProvider<>(readMembers(buffer, component));
+    }
+
+    private static InjectComponentProvider.Members readMembers(ByteBuffer buffer, Class<?> component) throws ReflectiveOperationException {
+        ClassLoader classLoader = component.getClassLoader();
+        Constructor<?> constructor = component.getDeclaredConstructor(readTypes(buffer, classLoader));
+        List<Field> fields = new ArrayList<>();
+        for (int count = buffer.getShort(); count > 0; count--)
+            fields.add(Class.forName(readString(buffer), false, classLoader).getDeclaredField(readString(buffer)));
+        List<Method> methods = new ArrayList<>();
+        for (int count = buffer.getShort(); count > 0; count--) {
+            Class<?> declaring = Class.forName(readString(buffer), false, classLoader);
+            methods.add(declaring.getMethod(readString(buffer), readTypes(buffer, classLoader)));
+        }
+        return new InjectComponentProvider.Members(constructor, fields, methods);
+    }
+
+    private static void writeTypes(DataOutputStream output, Class<?>[] types) throws IOException {
+        output.writeShort(types.length);
+        for (Class<?> type : types)
+            writeString(output, type.getName());
+    }
+
+    private static Class<?>[] readTypes(ByteBuffer buffer, ClassLoader classLoader) throws ClassNotFoundException {
+        Class<?>[] types = new Class<?>[buffer.getShort()];
+        for (int i = 0; i < types.length; i++) {
+            String name = readString(buffer);
+            Class<?> primitive = PRIMITIVES.get(name);
+            types[i] = primitive != null ? primitive : Class.forName(name, false, classLoader);
+        }
+        return types;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static byte[] bytesOf(Class<?> type) {
+        try (InputStream input = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class")) {
+            return input == null ? new byte[0] : input.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
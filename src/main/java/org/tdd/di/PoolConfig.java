@@ -0,0 +1,29 @@
+package org.tdd.di;
+
+public record PoolConfig(int size, Exhaustion exhaustion, boolean statistics) {
+    public enum Exhaustion {
+        // waits until another lease is closed
+        BLOCK,
+        // creates an instance that is dropped rather than pooled when its lease is closed
+        GROW,
+        // throws PoolExhaustedException
+        FAIL
+    }
+
+    public PoolConfig {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive");
+        if (exhaustion == null) throw new IllegalArgumentException("exhaustion must be given");
+    }
+
+    public static PoolConfig of(int size) {
+        return new PoolConfig(size, Exhaustion.BLOCK, true);
+    }
+
+    public PoolConfig onExhausted(Exhaustion exhaustion) {
+        return new PoolConfig(size, exhaustion, statistics);
+    }
+
+    public PoolConfig withoutStatistics() {
+        return new PoolConfig(size, exhaustion, false);
+    }
+}
@@ -0,0 +1,29 @@
+package org.tdd.di;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// injected as Pooled<T> for a component in a pooled scope; instances are borrowed and handed back by closing the lease
+public interface Pooled<T> {
+    Lease<T> borrow();
+
+    // zero unless the pool keeps statistics
+    long getHits();
+
+    long getMisses();
+
+    interface Lease<T> extends AutoCloseable {
+        T get();
+
+        @Override
+        void close();
+    }
+
+    // a public method without parameters, called on every instance handed back before it is borrowed again
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    @interface Reset {
+    }
+}
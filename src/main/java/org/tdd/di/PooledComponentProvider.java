@@ -0,0 +1,185 @@
+package org.tdd.di;
+
+import org.tdd.di.ContainerBuilder.Ref;
+import org.tdd.di.exception.IllegalComponentException;
+import org.tdd.di.exception.PoolExhaustedException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// idle instances sit in a fixed array of slots taken and filled by compare-and-set, starting from a slot picked by
+// the thread. A permit per slot bounds the leases, so an instance handed back always finds an empty slot.
+// Resolving the component itself rather than Pooled<T> bypasses the pool and builds a new instance
+class PooledComponentProvider<T> implements ComponentProvider<T>, Pooled<T> {
+    // a @Reset method that is not a public instance method without parameters makes the component illegal
+    private static final ClassValue<Optional<MethodHandle>> RESETS = new ClassValue<>() {
+        @Override
+        protected Optional<MethodHandle> computeValue(Class<?> component) {
+            for (Class<?> type = component; type != null; type = type.getSuperclass())
+                for (Method method : type.getDeclaredMethods())
+                    if (method.isAnnotationPresent(Reset.class) && (!Modifier.isPublic(method.getModifiers())
+                            || Modifier.isStatic(method.getModifiers()) || method.getParameterCount() > 0))
+                        throw new IllegalComponentException();
+            Optional<Method> reset = Arrays.stream(component.getMethods()).filter(method -> method.isAnnotationPresent(Reset.class)).findFirst();
+            try {
+                return reset.isEmpty() ? Optional.empty()
+                        : Optional.of(MethodHandles.privateLookupIn(component, MethodHandles.lookup()).unreflect(reset.get()));
+            } catch (IllegalAccessException e) {
+                throw new IllegalComponentException();
+            }
+        }
+    };
+
+    private final ComponentProvider<T> provider;
+    private final PoolConfig config;
+    // resolved when the scope wraps a provider of a known class, so a bad reset fails the build; null otherwise
+    private final Optional<MethodHandle> reset;
+    private final AtomicReferenceArray<T> idle;
+    private final Semaphore permits;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile Container container;
+
+    PooledComponentProvider(ComponentProvider<T> provider, PoolConfig config) {
+        this.provider = provider;
+        this.config = config;
+        this.idle = new AtomicReferenceArray<>(config.size());
+        this.permits = new Semaphore(config.size());
+        Class<?> component = componentOf(provider);
+        this.reset = component == null ? null : RESETS.get(component);
+    }
+
+    private static Class<?> componentOf(ComponentProvider<?> provider) {
+        if (provider instanceof InstrumentedComponentProvider.Construction<?> construction) return componentOf(construction.getProvider());
+        if (provider instanceof InjectComponentProvider<?> inject) return inject.getMembers().constructor().getDeclaringClass();
+        if (provider instanceof GeneratedComponentProvider<?> generated) return generated.getComponent();
+        return null;
+    }
+
+    @Override
+    public T getFrom(Container container) {
+        return provider.getFrom(container);
+    }
+
+    @Override
+    public Lease<T> borrow() {
+        boolean permitted = acquire();
+        T instance = permitted ? take() : null;
+        if (config.statistics()) (instance != null ? hits : misses).increment();
+        if (instance == null) {
+            try {
+                instance = provider.getFrom(container);
+            } catch (RuntimeException | Error e) {
+                if (permitted) permits.release();
+                throw e;
+            }
+        }
+        return new PooledLease(instance, permitted);
+    }
+
+    private boolean acquire() {
+        if (permits.tryAcquire()) return true;
+        return switch (config.exhaustion()) {
+            case GROW -> false;
+            case FAIL -> throw new PoolExhaustedException(config.size());
+            case BLOCK -> {
+                permits.acquireUninterruptibly();
+                yield true;
+            }
+        };
+    }
+
+    private T take() {
+        int start = start();
+        for (int i = 0; i < idle.length(); i++) {
+            int slot = (start + i) % idle.length();
+            T instance = idle.get(slot);
+            if (instance != null && idle.compareAndSet(slot, instance, null)) return instance;
+        }
+        return null;
+    }
+
+    private void put(T instance) {
+        int start = start();
+        for (int i = 0; ; i++) {
+            int slot = (start + i) % idle.length();
+            if (idle.get(slot) == null && idle.compareAndSet(slot, null, instance)) return;
+        }
+    }
+
+    private int start() {
+        return (int) (Thread.currentThread().getId() % idle.length());
+    }
+
+    private void reset(T instance) {
+        Optional<MethodHandle> reset = this.reset != null ? this.reset : RESETS.get(instance.getClass());
+        if (reset.isEmpty()) return;
+        try {
+            reset.get().invoke(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public List<Ref<?>> getDependencies() {
+        return provider.getDependencies();
+    }
+
+    @Override
+    public void link(Container container) {
+        this.container = container;
+        provider.link(container);
+    }
+
+    private class PooledLease implements Lease<T> {
+        private final T instance;
+        private final boolean permitted;
+        private boolean closed;
+
+        PooledLease(T instance, boolean permitted) {
+            this.instance = instance;
+            this.permitted = permitted;
+        }
+
+        @Override
+        public T get() {
+            if (closed) throw new IllegalStateException("lease is closed");
+            return instance;
+        }
+
+        // an instance whose reset fails is dropped, and its slot is left for a new one
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            if (!permitted) return;
+            try {
+                reset(instance);
+                put(instance);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.tdd.di;
+
+public interface ScopeProvider {
+    ComponentProvider<?> create(ComponentProvider<?> provider);
+
+    static ScopeProvider singleton() {
+        return SingletonComponentProvider::new;
+    }
+
+    static ScopeProvider threadLocal() {
+        return ThreadLocalComponentProvider::new;
+    }
+
+    static ScopeProvider striped(int stripes) {
+        if (stripes <= 0) throw new IllegalArgumentException("stripes must be positive");
+        return provider -> new StripedComponentProvider<>(provider, stripes);
+    }
+
+    // components in the scope are borrowed through an injected Pooled<T>, each with a pool of its own
+    static ScopeProvider pooled(PoolConfig config) {
+        return provider -> new PooledComponentProvider<>(provider, config);
+    }
+}
@@ -0,0 +1,95 @@
+package org.tdd.di;
+
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+class SingletonComponentProvider<T> implements ComponentProvider<T> {
+    private static final VarHandle CONSTRUCTION;
+
+    static {
+        try {
+            CONSTRUCTION = MethodHandles.lookup().findVarHandle(SingletonComponentProvider.class, "construction", Construction.class);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final ComponentProvider<T> provider;
+    private volatile T instance;
+    private volatile Construction<T> construction;
+
+    SingletonComponentProvider(ComponentProvider<T> provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public T getFrom(Container container) {
+        T result = instance;
+        return result != null ? result : create(container);
+    }
+
+    @Override
+    public List<Ref<?>> getDependencies() {
+        return provider.getDependencies();
+    }
+
+    @Override
+    public void link(Container container) {
+        provider.link(container);
+    }
+
+    // claims the construction like getFrom, but never blocks: racing callers share the pending future
+    CompletableFuture<T> getAsync(Function<ComponentProvider<T>, CompletableFuture<T>> create) {
+        T result = instance;
+        if (result != null) return CompletableFuture.completedFuture(result);
+        Construction<T> claim = new Construction<>(null, new CompletableFuture<>());
+        Construction<T> current = (Construction<T>) CONSTRUCTION.compareAndExchange(this, null, claim);
+        if (current != null) return current.result().copy();
+        create.apply(provider).whenComplete((created, failure) -> {
+            if (failure == null) {
+                instance = created;
+                claim.result().complete(created);
+            } else {
+                construction = null;
+                claim.result().completeExceptionally(failure);
+            }
+        });
+        return claim.result().copy();
+    }
+
+    private T create(Container container) {
+        Construction<T> claim = new Construction<>(Thread.currentThread(), new CompletableFuture<>());
+        Construction<T> current = (Construction<T>) CONSTRUCTION.compareAndExchange(this, null, claim);
+        if (current != null) return await(current);
+        try {
+            T result = provider.getFrom(container);
+            instance = result;
+            claim.result().complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            construction = null;
+            claim.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static <T> T await(Construction<T> construction) {
+        if (construction.owner() == Thread.currentThread())
+            throw new IllegalStateException("singleton requested while it is being constructed");
+        try {
+            return construction.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private record Construction<T>(Thread owner, CompletableFuture<T> result) {
+    }
+}
@@ -0,0 +1,32 @@
+package org.tdd.di;
+
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.util.List;
+
+class StripedComponentProvider<T> implements ComponentProvider<T> {
+    private final ComponentProvider<T> provider;
+    private final ComponentProvider<?>[] stripes;
+
+    StripedComponentProvider(ComponentProvider<T> provider, int stripes) {
+        this.provider = provider;
+        this.stripes = new ComponentProvider<?>[stripes];
+        for (int i = 0; i < stripes; i++)
+            this.stripes[i] = new SingletonComponentProvider<>(provider);
+    }
+
+    @Override
+    public T getFrom(Container container) {
+        return (T) stripes[(int) (Thread.currentThread().getId() % stripes.length)].getFrom(container);
+    }
+
+    @Override
+    public List<Ref<?>> getDependencies() {
+        return provider.getDependencies();
+    }
+
+    @Override
+    public void link(Container container) {
+        provider.link(container);
+    }
+}
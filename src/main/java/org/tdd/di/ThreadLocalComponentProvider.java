@@ -0,0 +1,34 @@
+package org.tdd.di;
+
+import org.tdd.di.ContainerBuilder.Ref;
+
+import java.util.List;
+
+class ThreadLocalComponentProvider<T> implements ComponentProvider<T> {
+    private final ComponentProvider<T> provider;
+    private final ThreadLocal<T> instances = new ThreadLocal<>();
+
+    ThreadLocalComponentProvider(ComponentProvider<T> provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public T getFrom(Container container) {
+        T instance = instances.get();
+        if (instance == null) {
+            instance = provider.getFrom(container);
+            instances.set(instance);
+        }
+        return instance;
+    }
+
+    @Override
+    public List<Ref<?>> getDependencies() {
+        return provider.getDependencies();
+    }
+
+    @Override
+    public void link(Container container) {
+        provider.link(container);
+    }
+}
@@ -0,0 +1,10 @@
+package org.tdd.di;
+
+import java.util.List;
+
+// components in the order they were warmed up, dependencies first
+public record WarmupReport(List<ComponentTiming> components, long totalNanos) {
+    // firstNanos is the cold resolution; warmNanos averages the ones after it, and equals it for a single run
+    public record ComponentTiming(Class<?> component, boolean singleton, int runs, long firstNanos, long warmNanos) {
+    }
+}
@@ -0,0 +1,17 @@
+package org.tdd.di.exception;
+
+import java.util.Map;
+
+public class EagerStartException extends RuntimeException {
+    private final Map<Class<?>, Throwable> failures;
+
+    public EagerStartException(Map<Class<?>, Throwable> failures) {
+        super("failed to start " + failures.keySet());
+        this.failures = failures;
+        failures.values().forEach(this::addSuppressed);
+    }
+
+    public Map<Class<?>, Throwable> getFailures() {
+        return failures;
+    }
+}
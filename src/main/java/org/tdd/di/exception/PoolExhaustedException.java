@@ -0,0 +1,7 @@
+package org.tdd.di.exception;
+
+public class PoolExhaustedException extends RuntimeException {
+    public PoolExhaustedException(int size) {
+        super("all " + size + " pooled instances are borrowed");
+    }
+}
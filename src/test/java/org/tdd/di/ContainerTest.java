@@ -2,21 +2,46 @@ package org.tdd.di;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
+import jakarta.inject.Scope;
+import jakarta.inject.Singleton;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Named;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.tdd.di.ContainerBuilder.Ref;
 import org.tdd.di.exception.CycleDependencyNotAllowed;
 import org.tdd.di.exception.DependencyNotFoundException;
+import org.tdd.di.exception.EagerStartException;
 import org.tdd.di.exception.IllegalComponentException;
+import org.tdd.di.exception.PoolExhaustedException;
 import org.tdd.di.exception.UnsupportedTypeException;
+import org.tdd.di.indexed.IndexedFixtures;
+import org.tdd.di.mangled.Outer;
+import org.tdd.di.mangled.Outer_Inner;
 
-import java.util.List;
-import java.util.Optional;
+import javax.management.JMX;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -155,6 +180,59 @@ public class ContainerTest {
                 }
             }
 
+            @Test
+            void should_generate_component_provider_for_injectable_component() throws Exception {
+                Dependency dependencyImpl = new Dependency() {
+                };
+                Container container = containerBuilder.bind(Dependency.class, dependencyImpl).build();
+                ComponentProvider<?> provider = (ComponentProvider<?>) Class.forName(
+                        ContainerBuilder.generatedProviderName(ConstructorInject.class)).getDeclaredConstructor().newInstance();
+
+                assertEquals(List.of(Dependency.class), provider.getDependencies().stream().map(Ref::getComponent).toList());
+                assertSame(dependencyImpl, ((Component) provider.getFrom(container)).getDependency());
+            }
+
+            @Test
+            void should_generate_distinct_providers_for_nested_and_underscored_top_level_class() {
+                Container container = containerBuilder.bind(Outer.Inner.class, Outer.Inner.class)
+                        .bind(Outer_Inner.class, Outer_Inner.class).build();
+
+                assertNotEquals(ContainerBuilder.generatedProviderName(Outer.Inner.class), ContainerBuilder.generatedProviderName(Outer_Inner.class));
+                assertTrue(container.getComponentProvider(Outer.Inner.class) instanceof GeneratedComponentProvider);
+                assertTrue(container.getComponentProvider(Outer_Inner.class) instanceof GeneratedComponentProvider);
+                assertTrue(container.get(Ref.of(Outer.Inner.class)).get() instanceof Outer.Inner);
+                assertTrue(container.get(Ref.of(Outer_Inner.class)).get() instanceof Outer_Inner);
+            }
+
+            @Test
+            void should_resolve_indexed_interface_to_class_binding_of_its_own_container_after_rebuild() {
+                Container container = containerBuilder.bindIndexed(getClass().getClassLoader(), "org.tdd.di.indexed").build();
+                IndexedFixtures.Repository repository = container.get(Ref.of(IndexedFixtures.Repository.class)).get();
+                IndexedFixtures.InMemoryRepository replaced = new IndexedFixtures.InMemoryRepository();
+
+                Container rebuilt = container.rebuild().bind(IndexedFixtures.InMemoryRepository.class, replaced).build();
+
+                assertSame(replaced, rebuilt.get(Ref.of(IndexedFixtures.Repository.class)).get());
+                assertSame(repository, container.get(Ref.of(IndexedFixtures.Repository.class)).get());
+            }
+
+            @Test
+            void should_bind_indexed_components_under_class_and_unique_interface() {
+                Container container = containerBuilder.bindIndexed(getClass().getClassLoader(), "org.tdd.di.indexed").build();
+
+                IndexedFixtures.Greeter greeter = container.get(Ref.of(IndexedFixtures.Greeter.class)).get();
+                assertTrue(greeter instanceof IndexedFixtures.Service);
+                assertSame(container.get(Ref.of(IndexedFixtures.Repository.class)).get(), greeter.getRepository());
+                assertSame(container.get(Ref.of(IndexedFixtures.InMemoryRepository.class)).get(),
+                        container.get(Ref.of(IndexedFixtures.Repository.class)).get());
+                assertSame(container.get(Ref.of(IndexedFixtures.InMemoryRepository.class)).get(),
+                        container.getAsync(Ref.of(IndexedFixtures.Repository.class)).join().get());
+                assertTrue(container.getComponentProvider(IndexedFixtures.Service.class) instanceof GeneratedComponentProvider);
+                assertTrue(container.get(Ref.of(IndexedFixtures.EmailChannel.class)).isPresent());
+                assertTrue(container.get(Ref.of(IndexedFixtures.Channel.class)).isEmpty());
+                assertTrue(container.get(Ref.of(BindingTest.ConstructorInject.class)).isEmpty());
+            }
+
             @Test
             void should_return_empty_when_get_if_type_not_bind() {
                 Optional<?> component = containerBuilder.build().get(Ref.of(Component.class));
@@ -180,6 +258,19 @@ public class ContainerTest {
                 assertSame(instance, ((Provider<Component>) provider.get()).get());
             }
 
+            @Test
+            void should_retrieve_same_provider_for_bound_component() {
+                Dependency dependencyImpl = new Dependency() {
+                };
+                Container container = containerBuilder.bind(Dependency.class, dependencyImpl)
+                        .bind(Component.class, FieldInjectProvider.class).build();
+
+                Object provider = container.get(new Ref<Provider<Dependency>>() {}).get();
+
+                assertSame(provider, container.get(new Ref<Provider<Dependency>>() {}).get());
+                assertSame(provider, container.get(Ref.of(Component.class)).get().getDependency());
+            }
+
             @Test
             void should_throw_exception_when_get_unsupported_container_type_as_provider() {
 
@@ -187,7 +278,7 @@ public class ContainerTest {
                 };
                 Container container = containerBuilder.bind(Component.class, instance).build();
 
-                assertThrows(UnsupportedTypeException.class, () -> container.get(new Ref<List<Component>>() {}));
+                assertThrows(UnsupportedTypeException.class, () -> container.get(new Ref<Optional<Component>>() {}));
             }
 
             @Test
@@ -279,6 +370,31 @@ public class ContainerTest {
                 assertTrue(components.contains(AnotherComponent.class));
             }
 
+            @Test
+            void should_report_cycle_path_in_dependency_order() {
+                containerBuilder.bind(Component.class, ComponentDependentDependency.class)
+                        .bind(Dependency.class, DependencyDependentAnotherComponent.class)
+                        .bind(AnotherComponent.class, AnotherComponentDependentComponent.class);
+                Map<Class<?>, Class<?>> dependencies = Map.of(Component.class, Dependency.class,
+                        Dependency.class, AnotherComponent.class, AnotherComponent.class, Component.class);
+
+                List<Class<?>> components = assertThrows(CycleDependencyNotAllowed.class, () -> containerBuilder.build()).getComponents();
+
+                for (int i = 0; i < components.size(); i++)
+                    assertEquals(dependencies.get(components.get(i)), components.get((i + 1) % components.size()));
+            }
+
+            @Test
+            void should_not_throw_Exception_when_bind_if_shared_dependency_without_cycle() {
+                Dependency dependency = new Dependency() {
+                };
+                containerBuilder.bind(Dependency.class, dependency)
+                        .bind(Component.class, ComponentDependentDependency.class)
+                        .bind(AnotherComponent.class, AnotherComponentDependentComponent.class);
+
+                assertTrue(containerBuilder.build().get(Ref.of(AnotherComponent.class)).isPresent());
+            }
+
             @Test
             void should_not_throw_Exception_when_bind_if_cycle_dependency_via_provider() {
                 Container container = containerBuilder.bind(Component.class, ComponentDependentDependency.class)
@@ -300,12 +416,1617 @@ public class ContainerTest {
     }
 
     @Nested
-    class ComponentSelectionTest {
+    class RefTest {
+        @Test
+        void should_return_same_ref_for_same_class() {
+            assertSame(Ref.of(Component.class), Ref.of(Component.class));
+            assertSame(Ref.of(Component.class), Ref.of((java.lang.reflect.Type) Component.class));
+        }
+
+        @Test
+        void should_return_same_ref_for_equal_parameterized_types() throws NoSuchFieldException {
+            Ref<?> ref = Ref.of(getClass().getDeclaredField("provider").getGenericType());
+
+            assertSame(ref, Ref.of(getClass().getDeclaredField("anotherProvider").getGenericType()));
+            assertEquals(Provider.class, ref.getContainer());
+            assertEquals(Component.class, ref.getComponent());
+        }
+
+        @Test
+        void should_support_nested_parameterized_types() throws NoSuchFieldException {
+            Ref<?> ref = Ref.of(getClass().getDeclaredField("nested").getGenericType());
+
+            assertSame(ref, Ref.of(getClass().getDeclaredField("anotherNested").getGenericType()));
+            assertEquals(Provider.class, ref.getContainer());
+            assertEquals(List.class, ref.getComponent());
+        }
 
+        @Test
+        void should_equal_to_interned_ref_if_declared_as_anonymous_ref() throws NoSuchFieldException {
+            Ref<?> ref = new Ref<Provider<List<Component>>>() {
+            };
+            Ref<?> interned = Ref.of(getClass().getDeclaredField("nested").getGenericType());
+
+            assertEquals(interned, ref);
+            assertEquals(interned.hashCode(), ref.hashCode());
+            assertNotEquals(Ref.of(getClass().getDeclaredField("provider").getGenericType()), ref);
+        }
+
+        @Test
+        void should_intern_ref_under_class_of_its_own_type_if_last_argument_is_wildcard() throws NoSuchFieldException {
+            java.lang.reflect.Type type = getClass().getDeclaredField("wildcard").getGenericType();
+
+            assertSame(Component.class.getClassLoader(), Ref.internedUnder(type).getClassLoader());
+            assertSame(Ref.of(type), Ref.of(type));
+            assertEquals(List.class, Ref.of(type).getComponent());
+        }
+
+        @Test
+        void should_intern_ref_under_class_of_its_own_type_if_bootstrap_class_is_last_argument() throws NoSuchFieldException {
+            assertSame(Component.class.getClassLoader(), Ref.internedUnder(getClass().getDeclaredField("keyed").getGenericType()).getClassLoader());
+            assertEquals(List.class, Ref.internedUnder(new Ref<List<String>>() {}.getType()));
+        }
+
+        @Test
+        void should_not_intern_ref_with_type_variable() throws NoSuchMethodException {
+            java.lang.reflect.Type type = getClass().getDeclaredMethod("variable").getGenericReturnType();
+
+            assertNull(Ref.internedUnder(type));
+            assertEquals(Ref.of(type), Ref.of(type));
+        }
+
+        <T> Provider<List<T>> variable() {
+            return null;
+        }
+
+        Provider<Component> provider;
+        Provider<Component> anotherProvider;
+        Provider<List<Component>> nested;
+        Provider<List<Component>> anotherNested;
+        Provider<List<? extends Component>> wildcard;
+        Provider<Map<Component, String>> keyed;
     }
 
     @Nested
-    class ComponentLifeCycleTest {
+    class ChildContainerTest {
+        @Test
+        void should_share_parent_components_with_child() {
+            Container parent = containerBuilder.bind(SharedService.class, SharedService.class).build();
+            Container child = new ContainerBuilder(parent).bind(Tenant.class, new Tenant("a")).build();
+
+            assertSame(parent.get(Ref.of(SharedService.class)).get(), child.get(Ref.of(SharedService.class)).get());
+            assertSame(parent.get(new Ref<Provider<SharedService>>() {}).get(), child.get(new Ref<Provider<SharedService>>() {}).get());
+        }
+
+        @Test
+        void should_inject_parent_components_into_child_components() {
+            Container parent = containerBuilder.bind(SharedService.class, SharedService.class).build();
+            Container child = new ContainerBuilder(parent).bind(Tenant.class, new Tenant("a"))
+                    .bind(TenantService.class, TenantService.class).build();
+
+            TenantService service = child.get(Ref.of(TenantService.class)).get();
+            assertEquals("a", service.tenant.name);
+            assertSame(parent.get(Ref.of(SharedService.class)).get(), service.shared);
+        }
+
+        @Test
+        void should_keep_overlays_of_siblings_and_parent_apart() {
+            Tenant tenant = new Tenant("parent");
+            Container parent = containerBuilder.bind(Tenant.class, tenant).build();
+            Container a = new ContainerBuilder(parent).bind(Tenant.class, new Tenant("a")).build();
+            Container b = new ContainerBuilder(parent).build();
+
+            assertEquals("a", a.get(Ref.of(Tenant.class)).get().name);
+            assertSame(tenant, b.get(Ref.of(Tenant.class)).get());
+            assertSame(tenant, parent.get(Ref.of(Tenant.class)).get());
+        }
+
+        @Test
+        void should_throw_exception_if_dependency_not_found_in_child_or_parent() {
+            Container parent = containerBuilder.bind(SharedService.class, SharedService.class).build();
+            ContainerBuilder child = new ContainerBuilder(parent).bind(TenantService.class, TenantService.class);
+
+            DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class, child::build);
+            assertEquals(Tenant.class, exception.getDependency());
+        }
+
+        static class Tenant {
+            final String name;
+
+            Tenant(String name) {
+                this.name = name;
+            }
+        }
+
+        @Singleton
+        static class SharedService {
+        }
+
+        static class TenantService {
+            final Tenant tenant;
+            final SharedService shared;
+
+            @Inject
+            TenantService(Tenant tenant, SharedService shared) {
+                this.tenant = tenant;
+                this.shared = shared;
+            }
+        }
+    }
+
+    @Nested
+    class RebuildTest {
+        @Test
+        void should_keep_singletons_not_depending_on_changed_binding() {
+            Container container = containerBuilder.bind(Config.class, new Config("old"))
+                    .bind(Cache.class, Cache.class).bind(Client.class, Client.class).build();
+            Cache cache = container.get(Ref.of(Cache.class)).get();
+
+            Container rebuilt = container.rebuild().bind(Config.class, new Config("new")).build();
+
+            assertSame(cache, rebuilt.get(Ref.of(Cache.class)).get());
+        }
+
+        @Test
+        void should_recreate_components_depending_on_changed_binding() {
+            Container container = containerBuilder.bind(Config.class, new Config("old"))
+                    .bind(Cache.class, Cache.class).bind(Client.class, Client.class).bind(Gateway.class, Gateway.class).build();
+            Gateway gateway = container.get(Ref.of(Gateway.class)).get();
+
+            Container rebuilt = container.rebuild().bind(Config.class, new Config("new")).build();
+            Gateway rebuiltGateway = rebuilt.get(Ref.of(Gateway.class)).get();
+
+            assertNotSame(gateway, rebuiltGateway);
+            assertEquals("new", rebuiltGateway.client.config.name);
+            assertSame(gateway.cache, rebuiltGateway.cache);
+            assertNotSame(gateway.client, rebuiltGateway.client);
+        }
+
+        @Test
+        void should_leave_base_container_unchanged() {
+            Container container = containerBuilder.bind(Config.class, new Config("old"))
+                    .bind(Cache.class, Cache.class).bind(Client.class, Client.class).build();
+
+            container.rebuild().bind(Config.class, new Config("new")).build();
+
+            assertEquals("old", container.get(Ref.of(Client.class)).get().config.name);
+        }
+
+        @Test
+        void should_add_binding_to_rebuilt_container() {
+            Container container = containerBuilder.bind(Config.class, new Config("old")).build();
+
+            Container rebuilt = container.rebuild().bind(Client.class, Client.class).build();
+
+            assertEquals("old", rebuilt.get(Ref.of(Client.class)).get().config.name);
+            assertTrue(container.get(Ref.of(Client.class)).isEmpty());
+        }
+
+        @Test
+        void should_recreate_components_depending_on_changed_multibinding() {
+            Container container = containerBuilder.bindInto(Config.class, new Config("a"))
+                    .bind(Configs.class, Configs.class).bind(Cache.class, Cache.class).build();
+
+            Container rebuilt = container.rebuild().bindInto(Config.class, new Config("b")).build();
+
+            assertEquals(List.of("a", "b"), rebuilt.get(Ref.of(Configs.class)).get().configs.stream().map(config -> config.name).toList());
+            assertSame(container.get(Ref.of(Cache.class)).get(), rebuilt.get(Ref.of(Cache.class)).get());
+        }
+
+        @Test
+        void should_recreate_dependents_after_many_rebuilds() {
+            Container container = containerBuilder.bind(Config.class, new Config("0"))
+                    .bind(Cache.class, Cache.class).bind(Client.class, Client.class).build();
+            Cache cache = container.get(Ref.of(Cache.class)).get();
+
+            for (int i = 1; i <= 20; i++)
+                container = container.rebuild().bind(Config.class, new Config(String.valueOf(i))).build();
+
+            assertEquals("20", container.get(Ref.of(Client.class)).get().config.name);
+            assertSame(cache, container.get(Ref.of(Cache.class)).get());
+        }
+
+        @Test
+        void should_throw_exception_if_changed_binding_misses_dependency() {
+            Container container = containerBuilder.bind(Cache.class, Cache.class).build();
+
+            DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class,
+                    () -> container.rebuild().bind(Client.class, Client.class).build());
+            assertEquals(Config.class, exception.getDependency());
+        }
+
+        @Test
+        void should_throw_exception_if_changed_binding_introduces_cycle() {
+            Container container = containerBuilder.bind(Config.class, new Config("old"))
+                    .bind(Client.class, Client.class).build();
+
+            assertThrows(CycleDependencyNotAllowed.class,
+                    () -> container.rebuild().bind(Config.class, ClientConfig.class).build());
+        }
+
+        static class Config {
+            final String name;
+
+            Config(String name) {
+                this.name = name;
+            }
+        }
+
+        static class ClientConfig extends Config {
+            @Inject
+            ClientConfig(Client client) {
+                super("client");
+            }
+        }
+
+        @Singleton
+        static class Cache {
+        }
+
+        @Singleton
+        static class Client {
+            final Config config;
+
+            @Inject
+            Client(Config config) {
+                this.config = config;
+            }
+        }
 
+        @Singleton
+        static class Gateway {
+            final Client client;
+            final Cache cache;
+
+            @Inject
+            Gateway(Client client, Cache cache) {
+                this.client = client;
+                this.cache = cache;
+            }
+        }
+
+        static class Configs {
+            final List<Config> configs;
+
+            @Inject
+            Configs(List<Config> configs) {
+                this.configs = configs;
+            }
+        }
+    }
+
+    @Nested
+    class InstrumentationTest {
+        @Test
+        void should_count_resolutions_and_constructions_per_component() {
+            Container container = containerBuilder.bind(Service.class, Service.class)
+                    .bind(Dependency.class, Dependency.class).instrument().build();
+
+            container.get(Ref.of(Service.class));
+            container.get(Ref.of(Service.class));
+
+            ComponentStatistics service = container.getStatistics().get(Service.class);
+            ComponentStatistics dependency = container.getStatistics().get(Dependency.class);
+            assertEquals(2, service.getResolutions());
+            assertEquals(2, service.getConstructions());
+            assertEquals(2, dependency.getResolutions());
+            assertEquals(1, dependency.getConstructions());
+        }
+
+        @Test
+        void should_not_collect_statistics_unless_instrumented() {
+            Container container = containerBuilder.bind(Dependency.class, Dependency.class).build();
+
+            container.get(Ref.of(Dependency.class));
+
+            assertTrue(container.getStatistics().isEmpty());
+        }
+
+        @Test
+        void should_expose_statistics_through_mbean() throws Exception {
+            Container container = containerBuilder.bind(Dependency.class, Dependency.class).instrument().build();
+            ObjectName name = new ObjectName("org.tdd.di:type=Container,name=InstrumentationTest");
+            container.registerStatistics(name);
+            try {
+                container.get(Ref.of(Dependency.class));
+
+                ComponentStatisticsMXBean statistics = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(), name, ComponentStatisticsMXBean.class);
+                assertEquals(1L, statistics.getResolutions().get(Dependency.class.getName()));
+                assertEquals(1L, statistics.getConstructions().get(Dependency.class.getName()));
+            } finally {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+        }
+
+        @Test
+        void should_record_resolution_events_with_depth_and_scope_hit() throws Exception {
+            Container container = containerBuilder.bind(Service.class, Service.class)
+                    .bind(Dependency.class, Dependency.class).instrument().build();
+            Path file = Files.createTempFile("resolution", ".jfr");
+            try (Recording recording = new Recording()) {
+                recording.enable("org.tdd.di.ComponentResolution").withoutThreshold();
+                recording.start();
+                container.get(Ref.of(Service.class));
+                container.get(Ref.of(Dependency.class));
+                recording.stop();
+                recording.dump(file);
+
+                List<String> events = RecordingFile.readAllEvents(file).stream()
+                        .filter(event -> event.getEventType().getName().equals("org.tdd.di.ComponentResolution"))
+                        .map(event -> event.getClass("component").getName() + ":" + event.getInt("depth") + ":" + event.getBoolean("hit"))
+                        .sorted().toList();
+                assertEquals(List.of(Dependency.class.getName() + ":0:true", Dependency.class.getName() + ":1:false",
+                        Service.class.getName() + ":0:false"), events);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        @Test
+        void should_record_inclusive_and_exclusive_construction_time() {
+            Container container = containerBuilder.bind(Root.class, Root.class).bind(Slow.class, Slow.class)
+                    .bind(Fast.class, Fast.class).profile().build();
+
+            container.get(Ref.of(Root.class));
+
+            Map<Class<?>, ConstructionProfile.Node> nodes = new HashMap<>();
+            container.getProfile().getNodes().forEach(node -> nodes.put(node.component(), node));
+            assertTrue(nodes.get(Slow.class).exclusiveNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+            assertTrue(nodes.get(Root.class).inclusiveNanos() >= nodes.get(Slow.class).inclusiveNanos() + nodes.get(Fast.class).inclusiveNanos());
+            assertTrue(nodes.get(Root.class).exclusiveNanos() < nodes.get(Slow.class).exclusiveNanos());
+            assertEquals(List.of(Slow.class, Fast.class), nodes.get(Root.class).dependencies());
+        }
+
+        @Test
+        void should_find_critical_path_by_exclusive_time() {
+            Container container = containerBuilder.bind(Root.class, Root.class).bind(Slow.class, Slow.class)
+                    .bind(Fast.class, Fast.class).profile().build();
+
+            container.get(Ref.of(Root.class));
+
+            ConstructionProfile profile = container.getProfile();
+            assertEquals(List.of(Root.class, Slow.class), profile.getCriticalPath());
+            assertTrue(profile.getCriticalPathNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+        }
+
+        @Test
+        void should_export_profile_as_dot_and_json() {
+            Container container = containerBuilder.bind(Root.class, Root.class).bind(Slow.class, Slow.class)
+                    .bind(Fast.class, Fast.class).profile().build();
+
+            container.get(Ref.of(Root.class));
+
+            ConstructionProfile profile = container.getProfile();
+            assertTrue(profile.toDot().contains("\"" + Root.class.getName() + "\" -> \"" + Slow.class.getName() + "\" [color=red];"));
+            assertTrue(profile.toDot().contains("\"" + Root.class.getName() + "\" -> \"" + Fast.class.getName() + "\";"));
+            assertTrue(profile.toDot().contains("[label=\"Slow\\ninclusive "));
+            assertFalse(profile.toDot().contains("\\\\n"));
+            assertTrue(profile.toJson().contains("\"components\":[\"" + Root.class.getName() + "\",\"" + Slow.class.getName() + "\"]"));
+        }
+
+        @Test
+        void should_not_profile_unless_asked() {
+            Container container = containerBuilder.bind(Slow.class, Slow.class).instrument().build();
+
+            container.get(Ref.of(Slow.class));
+
+            assertTrue(container.getProfile().getNodes().isEmpty());
+            assertEquals(0, container.getStatistics().get(Slow.class).getInclusiveNanos());
+        }
+
+        static class Service {
+            @Inject
+            Dependency dependency;
+        }
+
+        @Singleton
+        static class Dependency {
+        }
+
+        static class Root {
+            @Inject
+            Root(Slow slow, Fast fast) {
+            }
+        }
+
+        static class Slow {
+            Slow() throws InterruptedException {
+                Thread.sleep(20);
+            }
+        }
+
+        static class Fast {
+        }
+    }
+
+    @Nested
+    class ConcurrentBuilderTest {
+        @Test
+        void should_keep_bindings_made_from_many_threads() throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                List<Callable<ContainerBuilder>> contributions = new ArrayList<>();
+                for (int i = 0; i < 1000; i++) {
+                    int value = i;
+                    contributions.add(() -> containerBuilder.bindInto(Integer.class, "key" + value, value));
+                }
+                for (Future<ContainerBuilder> contribution : executor.invokeAll(contributions))
+                    contribution.get();
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertEquals(1000, containerBuilder.build().get(new Ref<Map<String, Integer>>() {}).get().size());
+        }
+
+        @Test
+        void should_analyse_bound_classes_on_executor() {
+            AtomicInteger analyses = new AtomicInteger();
+            Executor executor = task -> {
+                analyses.incrementAndGet();
+                ForkJoinPool.commonPool().execute(task);
+            };
+
+            Container container = containerBuilder.analyseOn(executor).bind(Service.class, ServiceImpl.class)
+                    .bind(Dependency.class, Dependency.class).build();
+
+            assertEquals(2, analyses.get());
+            assertNotNull(container.get(Ref.of(Service.class)).get().dependency());
+        }
+
+        @Test
+        void should_throw_exception_when_build_if_analysis_failed() {
+            containerBuilder.analyseOn(ForkJoinPool.commonPool()).bind(Service.class, AbstractService.class);
+
+            assertThrows(IllegalComponentException.class, () -> containerBuilder.build());
+        }
+
+        @Test
+        void should_throw_exception_when_build_if_analysis_of_contribution_failed() {
+            containerBuilder.analyseOn(ForkJoinPool.commonPool()).bindInto(Service.class, AbstractService.class);
+
+            assertThrows(IllegalComponentException.class, () -> containerBuilder.build());
+        }
+
+        @Test
+        void should_ignore_failed_analysis_of_class_bound_again() {
+            containerBuilder.analyseOn(ForkJoinPool.commonPool()).bind(Service.class, AbstractService.class)
+                    .bind(Service.class, ServiceImpl.class).bind(Dependency.class, Dependency.class);
+
+            assertTrue(containerBuilder.build().get(Ref.of(Service.class)).get() instanceof ServiceImpl);
+        }
+
+        interface Service {
+            Dependency dependency();
+        }
+
+        static class ServiceImpl implements Service {
+            @Inject
+            Dependency dependency;
+
+            @Override
+            public Dependency dependency() {
+                return dependency;
+            }
+        }
+
+        abstract static class AbstractService implements Service {
+        }
+
+        static class Dependency {
+        }
+    }
+
+    @Nested
+    class PlanCacheTest {
+        @TempDir
+        Path directory;
+
+        @Test
+        void should_restore_persisted_plan_for_unchanged_bindings() {
+            Path file = directory.resolve("plan");
+            containerBuilder.bind(Dependency.class, Dependency.class).bind(Service.class, Service.class).planCache(file).build();
+
+            Optional<Map<Class<?>, ComponentProvider<?>>> plans = PlanCache.load(file,
+                    PlanCache.fingerprint(Map.of(), Map.of(Dependency.class, Dependency.class, Service.class, Service.class)),
+                    List.of(Dependency.class, Service.class));
+            assertTrue(plans.isPresent());
+            InjectComponentProvider.Members members = ((InjectComponentProvider<?>) plans.get().get(Service.class)).getMembers();
+            assertEquals(List.of(Service.class, BaseService.class), members.fields().stream().map(Field::getDeclaringClass).toList());
+            assertEquals(List.of("setDependency"), members.methods().stream().map(Method::getName).toList());
+            assertEquals(1, members.constructor().getParameterCount());
+        }
+
+        @Test
+        void should_inject_components_from_persisted_plan() {
+            Path file = directory.resolve("plan");
+            new ContainerBuilder().bind(Dependency.class, Dependency.class).bind(Service.class, Service.class).planCache(file).build();
+
+            Service service = containerBuilder.bind(Dependency.class, Dependency.class).bind(Service.class, Service.class)
+                    .planCache(file).build().get(Ref.of(Service.class)).get();
+
+            assertNotNull(service.constructorDependency);
+            assertNotNull(service.dependency);
+            assertNotNull(((BaseService) service).dependency);
+            assertNotNull(service.methodDependency);
+        }
+
+        @Test
+        void should_replace_persisted_plan_when_bindings_change() throws IOException {
+            Path file = directory.resolve("plan");
+            new ContainerBuilder().bind(Dependency.class, Dependency.class).planCache(file).build();
+            byte[] persisted = Files.readAllBytes(file);
+
+            containerBuilder.bind(Dependency.class, Dependency.class).bind(Service.class, Service.class).planCache(file).build();
+
+            assertFalse(Arrays.equals(persisted, Files.readAllBytes(file)));
+        }
+
+        @Test
+        void should_check_dependencies_again_when_provider_binding_dependencies_change() {
+            Path file = directory.resolve("plan");
+            new ContainerBuilder().bind(Dependency.class, Dependency.class).bindProvider(Service.class, container -> null).planCache(file).build();
+
+            ContainerBuilder builder = containerBuilder.bind(Dependency.class, Dependency.class).bindProvider(Service.class, new ComponentProvider<>() {
+                @Override
+                public Object getFrom(Container container) {
+                    return null;
+                }
+
+                @Override
+                public List<Ref<?>> getDependencies() {
+                    return List.of(Ref.of(Unbound.class));
+                }
+            }).planCache(file);
+
+            assertThrows(DependencyNotFoundException.class, builder::build);
+        }
+
+        @Test
+        void should_build_without_cache_if_plan_cannot_be_saved() {
+            Path file = directory.resolve("missing").resolve("plan");
+
+            Container container = containerBuilder.bind(Dependency.class, Dependency.class).bind(Service.class, Service.class)
+                    .planCache(file).build();
+
+            assertNotNull(container.get(Ref.of(Service.class)).get().dependency);
+            assertFalse(Files.exists(file));
+        }
+
+        @Test
+        void should_ignore_corrupted_plan() throws IOException {
+            Path file = directory.resolve("plan");
+            Files.write(file, new byte[]{1, 2, 3});
+
+            Container container = containerBuilder.bind(Dependency.class, Dependency.class).planCache(file).build();
+
+            assertTrue(container.get(Ref.of(Dependency.class)).isPresent());
+            assertTrue(Files.size(file) > 3);
+        }
+
+        static class Dependency {
+        }
+
+        static class Unbound {
+        }
+
+        static class BaseService {
+            @Inject
+            Dependency dependency;
+        }
+
+        // the field hiding the one in BaseService keeps this component off the generated path
+        static class Service extends BaseService {
+            final Dependency constructorDependency;
+            @Inject
+            Dependency dependency;
+            Dependency methodDependency;
+
+            @Inject
+            Service(Dependency dependency) {
+                constructorDependency = dependency;
+            }
+
+            @Inject
+            public void setDependency(Dependency dependency) {
+                methodDependency = dependency;
+            }
+        }
+    }
+
+    @Nested
+    class AsyncResolutionTest {
+        private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        @AfterEach
+        void shutdown() {
+            executor.shutdownNow();
+        }
+
+        @Test
+        void should_resolve_component_asynchronously() throws Exception {
+            Container container = containerBuilder.bind(Dependency.class, Dependency.class)
+                    .bind(GeneratedComponent.class, GeneratedComponent.class)
+                    .bindProvider(ReflectiveComponent.class, new InjectComponentProvider<>(ReflectiveComponent.class)).build();
+
+            GeneratedComponent generated = container.getAsync(Ref.of(GeneratedComponent.class), executor).get(5, TimeUnit.SECONDS).get();
+            ReflectiveComponent reflective = container.getAsync(Ref.of(ReflectiveComponent.class), executor).get(5, TimeUnit.SECONDS).get();
+
+            for (Component component : List.of(generated, reflective)) {
+                assertNotNull(component.constructorDependency);
+                assertNotNull(component.fieldDependency);
+                assertNotNull(component.methodDependency);
+                assertSame(component.constructorDependency, component.provider.get());
+            }
+        }
+
+        @Test
+        void should_resolve_dependencies_of_component_at_same_time() throws Exception {
+            SlowDependency.arrived = new CountDownLatch(2);
+            Container container = containerBuilder.bind(SlowDependency.class, SlowDependency.class)
+                    .bind(AnotherSlowDependency.class, AnotherSlowDependency.class)
+                    .bind(SlowComponent.class, SlowComponent.class).build();
+
+            SlowComponent component = container.getAsync(Ref.of(SlowComponent.class), executor).get(10, TimeUnit.SECONDS).get();
+
+            assertTrue(component.first.concurrent);
+            assertTrue(component.second.concurrent);
+        }
+
+        @Test
+        void should_construct_singleton_once_when_resolutions_race() throws Exception {
+            CountingSingleton.constructed.set(0);
+            Container container = containerBuilder.bind(CountingSingleton.class, CountingSingleton.class).build();
+
+            List<CompletableFuture<Optional<CountingSingleton>>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++)
+                futures.add(container.getAsync(Ref.of(CountingSingleton.class), executor));
+            CountingSingleton instance = container.get(Ref.of(CountingSingleton.class)).get();
+
+            for (CompletableFuture<Optional<CountingSingleton>> future : futures)
+                assertSame(instance, future.get(5, TimeUnit.SECONDS).get());
+            assertEquals(1, CountingSingleton.constructed.get());
+        }
+
+        @Test
+        void should_complete_exceptionally_if_construction_fails() {
+            Container container = containerBuilder.bind(FailingSingleton.class, FailingSingleton.class).build();
+
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> container.getAsync(Ref.of(FailingSingleton.class), executor).get(5, TimeUnit.SECONDS));
+            assertTrue(exception.getCause() instanceof IllegalStateException);
+        }
+
+        @Singleton
+        static class Dependency {
+        }
+
+        static abstract class Component {
+            Dependency constructorDependency;
+            @Inject
+            Dependency fieldDependency;
+            @Inject
+            Provider<Dependency> provider;
+            Dependency methodDependency;
+
+            @Inject
+            public void setDependency(Dependency dependency) {
+                methodDependency = dependency;
+            }
+        }
+
+        static class GeneratedComponent extends Component {
+            @Inject
+            GeneratedComponent(Dependency dependency) {
+                constructorDependency = dependency;
+            }
+        }
+
+        static class ReflectiveComponent extends Component {
+            @Inject
+            ReflectiveComponent(Dependency dependency) {
+                constructorDependency = dependency;
+            }
+        }
+
+        @Singleton
+        static class SlowDependency {
+            static CountDownLatch arrived;
+            final boolean concurrent;
+
+            SlowDependency() throws InterruptedException {
+                arrived.countDown();
+                concurrent = arrived.await(5, TimeUnit.SECONDS);
+            }
+        }
+
+        @Singleton
+        static class AnotherSlowDependency extends SlowDependency {
+            AnotherSlowDependency() throws InterruptedException {
+            }
+        }
+
+        static class SlowComponent {
+            final SlowDependency first;
+            final SlowDependency second;
+
+            @Inject
+            SlowComponent(SlowDependency first, AnotherSlowDependency second) {
+                this.first = first;
+                this.second = second;
+            }
+        }
+
+        @Singleton
+        static class CountingSingleton {
+            static final AtomicInteger constructed = new AtomicInteger();
+
+            CountingSingleton() throws InterruptedException {
+                constructed.incrementAndGet();
+                Thread.sleep(50);
+            }
+        }
+
+        @Singleton
+        static class FailingSingleton {
+            FailingSingleton() {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    @Nested
+    class BatchResolutionTest {
+        @Test
+        void should_build_many_instances_sharing_singleton_dependency() {
+            Container container = containerBuilder.bind(Handler.class, Handler.class).bind(Metrics.class, Metrics.class).build();
+
+            List<Handler> handlers = container.getMany(Ref.of(Handler.class), 3);
+
+            assertEquals(3, handlers.stream().distinct().count());
+            assertEquals(1, handlers.stream().map(handler -> handler.metrics).distinct().count());
+        }
+
+        @Test
+        void should_repeat_singleton_when_get_many() {
+            Container container = containerBuilder.bind(Metrics.class, Metrics.class).build();
+
+            List<Metrics> metrics = container.getMany(Ref.of(Metrics.class), 2);
+
+            assertSame(metrics.get(0), metrics.get(1));
+        }
+
+        @Test
+        void should_return_empty_if_component_not_bound() {
+            Container container = containerBuilder.build();
+
+            assertTrue(container.getMany(Ref.of(Handler.class), 2).isEmpty());
+            assertEquals(0, container.getStream(Ref.of(Handler.class), 2).count());
+        }
+
+        @Test
+        void should_build_instances_in_parallel_when_stream() {
+            Container container = containerBuilder.bind(Handler.class, Handler.class).bind(Metrics.class, Metrics.class).build();
+
+            Set<Handler> handlers = container.getStream(Ref.of(Handler.class), 1000).parallel()
+                    .collect(Collectors.toCollection(() -> Collections.newSetFromMap(new ConcurrentHashMap<>())));
+
+            assertEquals(1000, handlers.size());
+        }
+
+        @Test
+        void should_build_parent_component_from_parent_when_get_many() {
+            Container parent = containerBuilder.bind(Handler.class, Handler.class).bind(Metrics.class, Metrics.class).build();
+            Container child = new ContainerBuilder(parent).bind(Metrics.class, new Metrics()).build();
+
+            Handler handler = child.getMany(Ref.of(Handler.class), 1).get(0);
+
+            assertSame(parent.get(Ref.of(Metrics.class)).get(), handler.metrics);
+        }
+
+        @Test
+        void should_throw_exception_if_count_negative() {
+            Container container = containerBuilder.bind(Metrics.class, Metrics.class).build();
+
+            assertThrows(IllegalArgumentException.class, () -> container.getMany(Ref.of(Metrics.class), -1));
+            assertThrows(IllegalArgumentException.class, () -> container.getStream(Ref.of(Metrics.class), -1));
+            assertTrue(container.getMany(Ref.of(Metrics.class), 0).isEmpty());
+        }
+
+        @Test
+        void should_throw_exception_if_get_many_of_container_type() {
+            Container container = containerBuilder.bind(Metrics.class, Metrics.class).build();
+
+            assertThrows(UnsupportedTypeException.class, () -> container.getMany(new Ref<Provider<Metrics>>() {}, 1));
+        }
+
+        static class Handler {
+            @Inject
+            Metrics metrics;
+        }
+
+        @Singleton
+        static class Metrics {
+        }
+    }
+
+    @Nested
+    class WarmupTest {
+        @BeforeEach
+        void reset() {
+            Counted.constructions.set(0);
+        }
+
+        @Test
+        void should_construct_singletons_and_prototypes_when_build_with_warmup() {
+            Container container = containerBuilder.bind(Counted.class, Counted.class).bind(Config.class, Config.class)
+                    .warmup(5).build();
+
+            WarmupReport report = container.getWarmupReport().orElseThrow();
+
+            assertEquals(5, Counted.constructions.get());
+            assertEquals(List.of(Config.class, Counted.class),
+                    report.components().stream().map(WarmupReport.ComponentTiming::component).toList());
+            WarmupReport.ComponentTiming config = report.components().get(0);
+            assertTrue(config.singleton());
+            assertEquals(1, config.runs());
+            assertEquals(config.firstNanos(), config.warmNanos());
+            WarmupReport.ComponentTiming counted = report.components().get(1);
+            assertFalse(counted.singleton());
+            assertEquals(5, counted.runs());
+            assertTrue(report.totalNanos() >= config.firstNanos() + counted.firstNanos());
+        }
+
+        @Test
+        void should_not_warmup_unless_asked() {
+            Container container = containerBuilder.bind(Counted.class, Counted.class).bind(Config.class, Config.class).build();
+
+            assertTrue(container.getWarmupReport().isEmpty());
+            assertEquals(0, Counted.constructions.get());
+        }
+
+        @Test
+        void should_keep_singleton_constructed_in_warmup() {
+            Container container = containerBuilder.bind(Config.class, Config.class).build();
+
+            container.warmup(3);
+
+            Config config = container.get(Ref.of(Config.class)).get();
+            assertSame(config, container.get(Ref.of(Config.class)).get());
+            assertTrue(container.getWarmupReport().isPresent());
+        }
+
+        @Test
+        void should_warmup_rebuilt_container() {
+            Container container = containerBuilder.bind(Config.class, Config.class).build();
+
+            Container rebuilt = container.rebuild().bind(Counted.class, Counted.class).warmup(2).build();
+
+            assertEquals(2, Counted.constructions.get());
+            assertTrue(container.getWarmupReport().isEmpty());
+            assertEquals(2, rebuilt.getWarmupReport().orElseThrow().components().size());
+        }
+
+        @Test
+        void should_fail_build_with_all_failures_when_warmup() {
+            ContainerBuilder builder = containerBuilder.bind(Failing.class, Failing.class).bind(Config.class, Config.class).warmup(1);
+
+            EagerStartException exception = assertThrows(EagerStartException.class, builder::build);
+
+            assertEquals(Set.of(Failing.class), exception.getFailures().keySet());
+        }
+
+        @Test
+        void should_throw_exception_if_iterations_not_positive() {
+            assertThrows(IllegalArgumentException.class, () -> containerBuilder.warmup(0));
+            assertThrows(IllegalArgumentException.class, () -> containerBuilder.build().warmup(-1));
+        }
+
+        static class Counted {
+            static final AtomicInteger constructions = new AtomicInteger();
+
+            @Inject
+            Counted(Config config) {
+                constructions.incrementAndGet();
+            }
+        }
+
+        @Singleton
+        static class Config {
+        }
+
+        static class Failing {
+            Failing() {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    @Nested
+    class LazyInjectionTest {
+        @Test
+        void should_construct_lazy_dependency_on_first_use() {
+            AtomicInteger constructions = new AtomicInteger();
+            Container container = containerBuilder.bind(AtomicInteger.class, constructions)
+                    .bind(Report.class, HeavyReport.class).bind(Controller.class, Controller.class).build();
+
+            Controller controller = container.get(Ref.of(Controller.class)).get();
+            assertEquals(0, constructions.get());
+
+            assertEquals("report", controller.report.render());
+            assertEquals("report", controller.report.render());
+            assertEquals(1, constructions.get());
+        }
+
+        @Test
+        void should_construct_lazy_dependency_once_across_threads() throws Exception {
+            AtomicInteger constructions = new AtomicInteger();
+            Container container = containerBuilder.bind(AtomicInteger.class, constructions)
+                    .bind(Report.class, HeavyReport.class).bind(Controller.class, Controller.class).build();
+            Controller controller = container.get(Ref.of(Controller.class)).get();
+
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<String>> renders = executor.invokeAll(Collections.nCopies(16, () -> controller.report.render()));
+                for (Future<String> render : renders)
+                    assertEquals("report", render.get());
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(1, constructions.get());
+        }
+
+        @Test
+        void should_report_lazy_dependencies_never_materialized() {
+            Container container = containerBuilder.bind(AtomicInteger.class, new AtomicInteger())
+                    .bind(Report.class, HeavyReport.class).bind(Controller.class, Controller.class).build();
+
+            container.get(Ref.of(Controller.class)).get().report.render();
+            container.get(Ref.of(Controller.class));
+
+            assertEquals(new LazyStatistics(2, 1), container.getLazyStatistics());
+            assertEquals(1, container.getLazyStatistics().unmaterialized());
+        }
+
+        @Test
+        void should_inject_lazy_dependency_as_proxy_when_get_async() {
+            AtomicInteger constructions = new AtomicInteger();
+            Container container = containerBuilder.bind(AtomicInteger.class, constructions)
+                    .bind(Report.class, HeavyReport.class).bind(Controller.class, Controller.class).build();
+
+            Controller controller = container.getAsync(Ref.of(Controller.class)).join().get();
+            assertTrue(Proxy.isProxyClass(controller.report.getClass()));
+            assertEquals(0, constructions.get());
+            assertEquals(new LazyStatistics(1, 0), container.getLazyStatistics());
+
+            assertEquals("report", controller.report.render());
+            assertEquals(1, constructions.get());
+            assertEquals(new LazyStatistics(1, 1), container.getLazyStatistics());
+        }
+
+        @Test
+        void should_throw_exception_when_bind_if_lazy_dependency_not_interface() {
+            assertThrows(IllegalComponentException.class, () -> containerBuilder.bind(LazyClassDependency.class, LazyClassDependency.class).build());
+        }
+
+        @Test
+        void should_leave_component_with_lazy_dependency_to_reflection() {
+            assertThrows(ClassNotFoundException.class, () ->
+                    Class.forName(ContainerBuilder.generatedProviderName(Controller.class)));
+        }
+
+        interface Report {
+            String render();
+        }
+
+        static class HeavyReport implements Report {
+            @Inject
+            HeavyReport(AtomicInteger constructions) {
+                constructions.incrementAndGet();
+            }
+
+            @Override
+            public String render() {
+                return "report";
+            }
+        }
+
+        static class Controller {
+            final Report report;
+
+            @Inject
+            Controller(@Lazy Report report) {
+                this.report = report;
+            }
+        }
+
+        static class LazyClassDependency {
+            @Inject
+            @Lazy
+            HeavyReport report;
+        }
+    }
+
+    @Nested
+    class MultibindingTest {
+        @Test
+        void should_inject_list_and_set_of_contributions_in_binding_order() {
+            Handler instance = new Handler() {
+            };
+            Dispatcher dispatcher = containerBuilder.bind(Dependency.class, new Dependency())
+                    .bindInto(Handler.class, instance).bindInto(Handler.class, InjectedHandler.class)
+                    .bind(Dispatcher.class, Dispatcher.class).build().get(Ref.of(Dispatcher.class)).get();
+
+            assertEquals(2, dispatcher.handlers.size());
+            assertSame(instance, dispatcher.handlers.get(0));
+            assertNotNull(((InjectedHandler) dispatcher.handlers.get(1)).dependency);
+            assertEquals(2, dispatcher.handlerSet.size());
+            assertThrows(UnsupportedOperationException.class, () -> dispatcher.handlers.add(instance));
+        }
+
+        @Test
+        void should_inject_map_of_keyed_contributions() {
+            Handler instance = new Handler() {
+            };
+            Container container = containerBuilder.bind(Dependency.class, new Dependency())
+                    .bindInto(Handler.class, "instance", instance).bindInto(Handler.class, "injected", InjectedHandler.class)
+                    .build();
+
+            Map<String, Handler> handlers = container.get(new Ref<Map<String, Handler>>() {}).get();
+
+            assertEquals(List.of("instance", "injected"), new ArrayList<>(handlers.keySet()));
+            assertSame(instance, handlers.get("instance"));
+            assertTrue(handlers.get("injected") instanceof InjectedHandler);
+            assertNull(handlers.get("missing"));
+            assertTrue(container.get(new Ref<List<Handler>>() {}).isEmpty());
+        }
+
+        @Test
+        void should_collapse_equal_contributions_in_set_and_keep_them_in_list() {
+            Handler instance = new Handler() {
+            };
+            Container container = containerBuilder.bindInto(Handler.class, instance).bindInto(Handler.class, instance)
+                    .bindInto(String.class, "b").bindInto(String.class, "a").bindInto(String.class, "b").build();
+
+            assertEquals(Set.of(instance), container.get(new Ref<Set<Handler>>() {}).get());
+            assertEquals(2, container.get(new Ref<List<Handler>>() {}).get().size());
+            assertEquals(List.of("b", "a"), new ArrayList<>(container.get(new Ref<Set<String>>() {}).get()));
+            assertThrows(UnsupportedOperationException.class, () -> container.get(new Ref<Set<String>>() {}).get().add("c"));
+        }
+
+        @Test
+        void should_share_singleton_contributions() {
+            Container container = containerBuilder.bindInto(Handler.class, SingletonHandler.class).build();
+
+            assertSame(container.get(new Ref<List<Handler>>() {}).get().get(0), container.get(new Ref<Set<Handler>>() {}).get().iterator().next());
+        }
+
+        @Test
+        void should_throw_exception_if_contribution_dependency_not_found() {
+            containerBuilder.bindInto(Handler.class, InjectedHandler.class);
+
+            DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class, () -> containerBuilder.build());
+            assertEquals(Handler.class, exception.getComponent());
+            assertEquals(Dependency.class, exception.getDependency());
+        }
+
+        @Test
+        void should_throw_exception_if_no_contribution_for_injected_list() {
+            containerBuilder.bind(Dispatcher.class, Dispatcher.class);
+
+            DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class, () -> containerBuilder.build());
+            assertEquals(Dispatcher.class, exception.getComponent());
+            assertEquals(Handler.class, exception.getDependency());
+        }
+
+        @Test
+        void should_throw_exception_if_cycle_through_contribution() {
+            containerBuilder.bind(Dispatcher.class, Dispatcher.class).bindInto(Handler.class, CyclicHandler.class);
+
+            CycleDependencyNotAllowed exception = assertThrows(CycleDependencyNotAllowed.class, () -> containerBuilder.build());
+            assertTrue(exception.getComponents().containsAll(List.of(Dispatcher.class, Handler.class)));
+        }
+
+        @Test
+        void should_throw_exception_if_key_bound_twice() {
+            containerBuilder.bindInto(Handler.class, "handler", new Handler() {
+            });
+
+            assertThrows(IllegalComponentException.class, () -> containerBuilder.bindInto(Handler.class, "handler", InjectedHandler.class));
+        }
+
+        interface Handler {
+        }
+
+        static class Dependency {
+        }
+
+        static class InjectedHandler implements Handler {
+            @Inject
+            Dependency dependency;
+        }
+
+        @Singleton
+        static class SingletonHandler implements Handler {
+        }
+
+        static class CyclicHandler implements Handler {
+            @Inject
+            Dispatcher dispatcher;
+        }
+
+        static class Dispatcher {
+            @Inject
+            List<Handler> handlers;
+            @Inject
+            Set<Handler> handlerSet;
+        }
+    }
+
+    @Nested
+    class ComponentResolutionTest {
+        private Object sink;
+
+        @Test
+        void should_allocate_only_component_instances_when_resolve_via_generated_provider() {
+            Container container = containerBuilder.bind(Leaf.class, Leaf.class).bind(Root.class, Root.class).build();
+
+            assertAllocatesOnlyComponents(container);
+        }
+
+        @Test
+        void should_allocate_only_component_instances_when_resolve_via_inject_provider() {
+            Map<Class<?>, ComponentProvider<?>> providers = Map.of(Leaf.class, new InjectComponentProvider<>(Leaf.class),
+                    Root.class, new InjectComponentProvider<>(Root.class));
+            Container container = new Container(providers);
+            providers.values().forEach(provider -> provider.link(container));
+
+            assertAllocatesOnlyComponents(container);
+        }
+
+        private void assertAllocatesOnlyComponents(Container container) {
+            Ref<Root> ref = Ref.of(Root.class);
+            long expected = allocatedPerOperation(() -> {
+                Root root = new Root(new Leaf());
+                root.fieldLeaf = new Leaf();
+                root.setMethodLeaf(new Leaf());
+                return Optional.of(root);
+            });
+
+            assertTrue(allocatedPerOperation(() -> container.get(ref)) <= expected);
+        }
+
+        private long allocatedPerOperation(Supplier<Object> operation) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            for (int i = 0; i < 200_000; i++)
+                sink = operation.get();
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < 100_000; i++)
+                sink = operation.get();
+            return (threads.getCurrentThreadAllocatedBytes() - before) / 100_000;
+        }
+
+        static class Leaf {
+        }
+
+        static class Root {
+            final Leaf constructorLeaf;
+            @Inject
+            Leaf fieldLeaf;
+            Leaf methodLeaf;
+
+            @Inject
+            public Root(Leaf leaf) {
+                constructorLeaf = leaf;
+            }
+
+            @Inject
+            public void setMethodLeaf(Leaf leaf) {
+                methodLeaf = leaf;
+            }
+        }
+    }
+
+    @Nested
+    class ComponentSelectionTest {
+
+    }
+
+    @Nested
+    class ComponentLifeCycleTest {
+        @Test
+        void should_not_be_singleton_by_default() {
+            Container container = containerBuilder.bind(SingletonComponent.class, SingletonComponent.class)
+                    .bind(PrototypeComponent.class, PrototypeComponent.class).build();
+
+            assertNotSame(container.get(Ref.of(PrototypeComponent.class)).get(), container.get(Ref.of(PrototypeComponent.class)).get());
+        }
+
+        @Test
+        void should_retrieve_same_instance_if_singleton_annotated() {
+            Container container = containerBuilder.bind(SingletonComponent.class, SingletonComponent.class).build();
+
+            assertSame(container.get(Ref.of(SingletonComponent.class)).get(), container.get(Ref.of(SingletonComponent.class)).get());
+        }
+
+        @Test
+        void should_construct_singleton_exactly_once_if_resolved_concurrently() throws Exception {
+            Container container = containerBuilder.bind(CountingSingletonComponent.class, CountingSingletonComponent.class).build();
+            CountingSingletonComponent.constructed.set(0);
+            ExecutorService executor = Executors.newFixedThreadPool(64);
+            CountDownLatch start = new CountDownLatch(1);
+            try {
+                List<Future<Optional<CountingSingletonComponent>>> results = new ArrayList<>();
+                for (int i = 0; i < 64; i++)
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return container.get(Ref.of(CountingSingletonComponent.class));
+                    }));
+                start.countDown();
+
+                Set<Object> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (Future<Optional<CountingSingletonComponent>> result : results)
+                    instances.add(result.get().get());
+                assertEquals(1, instances.size());
+                assertEquals(1, CountingSingletonComponent.constructed.get());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void should_honor_scope_when_get_from_provider() {
+            Container container = containerBuilder.bind(SingletonComponent.class, SingletonComponent.class).build();
+
+            Provider<SingletonComponent> provider = container.get(new Ref<Provider<SingletonComponent>>() {}).get();
+
+            assertSame(provider.get(), provider.get());
+            assertSame(container.get(Ref.of(SingletonComponent.class)).get(), provider.get());
+        }
+
+        @Test
+        void should_share_singleton_dependency_between_components() {
+            Container container = containerBuilder.bind(SingletonComponent.class, SingletonComponent.class)
+                    .bind(PrototypeComponent.class, PrototypeComponent.class).build();
+
+            PrototypeComponent first = container.get(Ref.of(PrototypeComponent.class)).get();
+            PrototypeComponent second = container.get(Ref.of(PrototypeComponent.class)).get();
+
+            assertSame(first.singleton, second.singleton);
+        }
+
+        @Test
+        void should_retrieve_same_instance_within_thread_if_thread_local_scope_registered() throws Exception {
+            Container container = containerBuilder.scope(PerThread.class, ScopeProvider.threadLocal())
+                    .bind(PerThreadComponent.class, PerThreadComponent.class).build();
+
+            PerThreadComponent component = container.get(Ref.of(PerThreadComponent.class)).get();
+            PerThreadComponent another = CompletableFuture.supplyAsync(() -> container.get(Ref.of(PerThreadComponent.class)).get()).get();
+
+            assertSame(component, container.get(Ref.of(PerThreadComponent.class)).get());
+            assertNotSame(component, another);
+        }
+
+        @Test
+        void should_share_instance_across_threads_of_same_stripe_if_striped_scope_registered() throws Exception {
+            Container container = containerBuilder.scope(PerThread.class, ScopeProvider.striped(1))
+                    .bind(PerThreadComponent.class, PerThreadComponent.class).build();
+
+            PerThreadComponent component = container.get(Ref.of(PerThreadComponent.class)).get();
+            PerThreadComponent another = CompletableFuture.supplyAsync(() -> container.get(Ref.of(PerThreadComponent.class)).get()).get();
+
+            assertSame(component, another);
+        }
+
+        @Test
+        void should_throw_exception_when_build_if_scope_not_registered() {
+            containerBuilder.bind(PerThreadComponent.class, PerThreadComponent.class);
+
+            assertThrows(IllegalComponentException.class, () -> containerBuilder.build());
+        }
+
+        @Test
+        void should_throw_exception_when_register_scope_if_not_scope_annotation() {
+            assertThrows(IllegalComponentException.class, () -> containerBuilder.scope(NotScope.class, ScopeProvider.threadLocal()));
+        }
+
+        @Test
+        void should_throw_exception_when_bind_if_multiple_scopes_annotated() {
+            assertThrows(IllegalComponentException.class, () -> containerBuilder.bind(MultiScopedComponent.class, MultiScopedComponent.class));
+        }
+
+        @Scope
+        @Retention(RetentionPolicy.RUNTIME)
+        @interface PerThread {
+        }
+
+        @Retention(RetentionPolicy.RUNTIME)
+        @interface NotScope {
+        }
+
+        @PerThread
+        static class PerThreadComponent {
+        }
+
+        @Singleton
+        @PerThread
+        static class MultiScopedComponent {
+        }
+
+        static class PrototypeComponent {
+            @Inject
+            SingletonComponent singleton;
+        }
+
+        @Singleton
+        static class SingletonComponent {
+        }
+
+        @Singleton
+        static class CountingSingletonComponent {
+            static final AtomicInteger constructed = new AtomicInteger();
+
+            public CountingSingletonComponent() throws InterruptedException {
+                constructed.incrementAndGet();
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    @Nested
+    class EagerStartTest {
+        @Test
+        void should_construct_independent_singletons_in_parallel_when_start() {
+            List.of(Slow1.class, Slow2.class, Slow3.class, Slow4.class, Slow5.class, Slow6.class, Slow7.class, Slow8.class)
+                    .forEach(type -> containerBuilder.bind((Class<SlowSingleton>) type, type));
+            Container container = containerBuilder.build();
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                long start = System.nanoTime();
+                container.start(executor);
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                assertTrue(elapsed < 8 * SlowSingleton.DELAY / 2, "eager start took " + elapsed + "ms");
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void should_construct_dependencies_before_dependents_when_start() {
+            Container container = containerBuilder.bind(Slow1.class, Slow1.class)
+                    .bind(DependentSingleton.class, DependentSingleton.class).build();
+
+            container.start();
+
+            DependentSingleton dependent = container.get(Ref.of(DependentSingleton.class)).get();
+            assertSame(container.get(Ref.of(Slow1.class)).get(), dependent.dependency);
+            assertTrue(dependent.dependency.constructedAt < dependent.constructedAt);
+        }
+
+        @Test
+        void should_report_all_construction_failures_when_start() {
+            Container container = containerBuilder.bind(FailingSingleton.class, FailingSingleton.class)
+                    .bind(AnotherFailingSingleton.class, AnotherFailingSingleton.class).build();
+
+            EagerStartException exception = assertThrows(EagerStartException.class, () -> container.start());
+
+            assertEquals(Set.of(FailingSingleton.class, AnotherFailingSingleton.class), exception.getFailures().keySet());
+        }
+
+        abstract static class SlowSingleton {
+            static final long DELAY = 200;
+            final long constructedAt;
+
+            SlowSingleton() {
+                try {
+                    Thread.sleep(DELAY);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                constructedAt = System.nanoTime();
+            }
+        }
+
+        @Singleton
+        static class Slow1 extends SlowSingleton {
+        }
+
+        @Singleton
+        static class Slow2 extends SlowSingleton {
+        }
+
+        @Singleton
+        static class Slow3 extends SlowSingleton {
+        }
+
+        @Singleton
+        static class Slow4 extends SlowSingleton {
+        }
+
+        @Singleton
+        static class Slow5 extends SlowSingleton {
+        }
+
+        @Singleton
+        static class Slow6 extends SlowSingleton {
+        }
+
+        @Singleton
+        static class Slow7 extends SlowSingleton {
+        }
+
+        @Singleton
+        static class Slow8 extends SlowSingleton {
+        }
+
+        @Singleton
+        static class DependentSingleton {
+            final Slow1 dependency;
+            final long constructedAt;
+
+            @Inject
+            public DependentSingleton(Slow1 dependency) {
+                this.dependency = dependency;
+                constructedAt = System.nanoTime();
+            }
+        }
+
+        @Singleton
+        static class FailingSingleton {
+            public FailingSingleton() {
+                throw new IllegalStateException();
+            }
+        }
+
+        @Singleton
+        static class AnotherFailingSingleton {
+            public AnotherFailingSingleton() {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    @Nested
+    class PooledScopeTest {
+        @Test
+        void should_reuse_instance_handed_back_to_pool() {
+            Container container = containerBuilder.scope(PerPool.class, ScopeProvider.pooled(PoolConfig.of(2)))
+                    .bind(Buffer.class, Buffer.class).build();
+            Pooled<Buffer> pool = container.get(new Ref<Pooled<Buffer>>() {}).get();
+
+            Buffer buffer;
+            try (Pooled.Lease<Buffer> lease = pool.borrow()) {
+                buffer = lease.get();
+                buffer.bytes[0] = 1;
+            }
+            try (Pooled.Lease<Buffer> lease = pool.borrow()) {
+                assertSame(buffer, lease.get());
+                assertEquals(0, lease.get().bytes[0]);
+            }
+            assertEquals(1, pool.getHits());
+            assertEquals(1, pool.getMisses());
+        }
+
+        @Test
+        void should_inject_pool_into_component() {
+            Container container = containerBuilder.scope(PerPool.class, ScopeProvider.pooled(PoolConfig.of(1)))
+                    .bind(Buffer.class, Buffer.class).bind(BufferUser.class, BufferUser.class).build();
+
+            BufferUser user = container.get(Ref.of(BufferUser.class)).get();
+
+            assertSame(container.get(new Ref<Pooled<Buffer>>() {}).get(), user.buffers);
+        }
+
+        @Test
+        void should_throw_exception_if_pool_exhausted_and_fail_configured() {
+            Container container = containerBuilder.scope(PerPool.class,
+                            ScopeProvider.pooled(PoolConfig.of(1).onExhausted(PoolConfig.Exhaustion.FAIL)))
+                    .bind(Buffer.class, Buffer.class).build();
+            Pooled<Buffer> pool = container.get(new Ref<Pooled<Buffer>>() {}).get();
+
+            try (Pooled.Lease<Buffer> ignored = pool.borrow()) {
+                assertThrows(PoolExhaustedException.class, pool::borrow);
+            }
+        }
+
+        @Test
+        void should_create_extra_instance_if_pool_exhausted_and_grow_configured() {
+            Container container = containerBuilder.scope(PerPool.class,
+                            ScopeProvider.pooled(PoolConfig.of(1).onExhausted(PoolConfig.Exhaustion.GROW)))
+                    .bind(Buffer.class, Buffer.class).build();
+            Pooled<Buffer> pool = container.get(new Ref<Pooled<Buffer>>() {}).get();
+
+            Pooled.Lease<Buffer> first = pool.borrow();
+            Pooled.Lease<Buffer> extra = pool.borrow();
+            Buffer pooled = first.get();
+            assertNotSame(pooled, extra.get());
+            extra.close();
+            first.close();
+
+            try (Pooled.Lease<Buffer> lease = pool.borrow()) {
+                assertSame(pooled, lease.get());
+            }
+        }
+
+        @Test
+        void should_wait_for_instance_if_pool_exhausted_and_block_configured() throws Exception {
+            Container container = containerBuilder.scope(PerPool.class, ScopeProvider.pooled(PoolConfig.of(1)))
+                    .bind(Buffer.class, Buffer.class).build();
+            Pooled<Buffer> pool = container.get(new Ref<Pooled<Buffer>>() {}).get();
+
+            Pooled.Lease<Buffer> lease = pool.borrow();
+            Buffer buffer = lease.get();
+            CompletableFuture<Buffer> waiting = CompletableFuture.supplyAsync(() -> {
+                try (Pooled.Lease<Buffer> next = pool.borrow()) {
+                    return next.get();
+                }
+            });
+            assertThrows(TimeoutException.class, () -> waiting.get(50, TimeUnit.MILLISECONDS));
+            lease.close();
+
+            assertSame(buffer, waiting.get(1, TimeUnit.SECONDS));
+        }
+
+        @Test
+        void should_not_count_hits_and_misses_if_statistics_disabled() {
+            Container container = containerBuilder.scope(PerPool.class, ScopeProvider.pooled(PoolConfig.of(1).withoutStatistics()))
+                    .bind(Buffer.class, Buffer.class).build();
+            Pooled<Buffer> pool = container.get(new Ref<Pooled<Buffer>>() {}).get();
+
+            pool.borrow().close();
+
+            assertEquals(0, pool.getMisses());
+        }
+
+        @Test
+        void should_throw_exception_when_build_if_pool_injected_for_component_not_pooled() {
+            containerBuilder.bind(PrototypeBuffer.class, PrototypeBuffer.class).bind(PrototypeBufferUser.class, PrototypeBufferUser.class);
+
+            assertThrows(UnsupportedTypeException.class, () -> containerBuilder.build());
+        }
+
+        @Test
+        void should_throw_exception_when_build_if_reset_method_takes_parameters() {
+            ContainerBuilder builder = containerBuilder.scope(PerPool.class, ScopeProvider.pooled(PoolConfig.of(1)))
+                    .bind(IllegalResetBuffer.class, IllegalResetBuffer.class);
+
+            assertThrows(IllegalComponentException.class, builder::build);
+        }
+
+        @Scope
+        @Retention(RetentionPolicy.RUNTIME)
+        @interface PerPool {
+        }
+
+        @PerPool
+        static class Buffer {
+            final byte[] bytes = new byte[16];
+
+            @Pooled.Reset
+            public void clear() {
+                Arrays.fill(bytes, (byte) 0);
+            }
+        }
+
+        static class BufferUser {
+            @Inject
+            Pooled<Buffer> buffers;
+        }
+
+        @PerPool
+        static class IllegalResetBuffer {
+            @Pooled.Reset
+            public void clear(boolean zero) {
+            }
+        }
+
+        static class PrototypeBuffer {
+        }
+
+        static class PrototypeBufferUser {
+            @Inject
+            Pooled<PrototypeBuffer> buffers;
+        }
     }
 }
@@ -78,6 +78,15 @@ class InjectTest {
                 assertArrayEquals(new Ref[]{Ref.of(Dependency.class)}, provider.getDependencies().toArray());
             }
 
+            @Test
+            void should_share_analysis_between_providers_of_same_class() {
+                InjectComponentProvider<ComponentDependentDependency> first = new InjectComponentProvider<>(ComponentDependentDependency.class);
+                InjectComponentProvider<ComponentDependentDependency> second = new InjectComponentProvider<>(ComponentDependentDependency.class);
+
+                assertNotSame(first, second);
+                assertSame(first.getMembers(), second.getMembers());
+            }
+
             @Test
             void should_include_provider_type_dependency_when_get_type_dependencies() {
                 InjectComponentProvider<ConstructorInjectProvider> provider = new InjectComponentProvider<>(ConstructorInjectProvider.class);
@@ -126,6 +135,13 @@ class InjectTest {
                 assertThrows(IllegalComponentException.class, () ->
                         new InjectComponentProvider<>(ComponentWithNoInjectNorDefaultConstructor.class));
             }
+
+            @Test
+            void should_throw_exception_again_when_bind_again_class_failed_analysis() {
+                assertThrows(IllegalComponentException.class, () -> new InjectComponentProvider<>(ComponentWithMultiInjectConstructor.class));
+
+                assertThrows(IllegalComponentException.class, () -> new InjectComponentProvider<>(ComponentWithMultiInjectConstructor.class));
+            }
         }
     }
 
@@ -192,6 +208,16 @@ class InjectTest {
                 assertEquals("dependency", exception.getFieldName());
             }
 
+            @Test
+            void should_throw_exception_with_field_again_when_bind_again_class_with_final_field() {
+                assertThrows(FinalFieldInjectException.class, () -> new InjectComponentProvider<>(ComponentWithFinalField.class));
+
+                FinalFieldInjectException exception = assertThrows(FinalFieldInjectException.class,
+                        () -> new InjectComponentProvider<>(ComponentWithFinalField.class));
+                assertEquals(ComponentWithFinalField.class, exception.getComponent());
+                assertEquals("dependency", exception.getFieldName());
+            }
+
             static class ComponentWithFinalField implements Component {
                 @Inject
                 private final Dependency dependency;
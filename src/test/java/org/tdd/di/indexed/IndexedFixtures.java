@@ -0,0 +1,49 @@
+package org.tdd.di.indexed;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+public class IndexedFixtures {
+    public interface Repository {
+    }
+
+    public interface Greeter {
+        Repository getRepository();
+    }
+
+    public interface Channel {
+    }
+
+    @Singleton
+    public static class InMemoryRepository implements Repository {
+        @Inject
+        public InMemoryRepository() {
+        }
+    }
+
+    public static class Service implements Greeter {
+        private final Repository repository;
+
+        @Inject
+        public Service(Repository repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Repository getRepository() {
+            return repository;
+        }
+    }
+
+    public static class EmailChannel implements Channel {
+        @Inject
+        public EmailChannel() {
+        }
+    }
+
+    public static class SmsChannel implements Channel {
+        @Inject
+        public SmsChannel() {
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.tdd.di.mangled;
+
+import jakarta.inject.Inject;
+
+public class Outer {
+    public static class Inner {
+        @Inject
+        public Inner() {
+        }
+    }
+}
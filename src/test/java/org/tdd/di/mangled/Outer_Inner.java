@@ -0,0 +1,10 @@
+package org.tdd.di.mangled;
+
+import jakarta.inject.Inject;
+
+// the binary name of Outer.Inner with '$' replaced by '_'
+public class Outer_Inner {
+    @Inject
+    public Outer_Inner() {
+    }
+}